@@ -0,0 +1,61 @@
+package com.example.utils;
+
+import com.example.models.User;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side deserialization of {@code GET /users} bodies through {@link UserUtils}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserUtilsBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private Response response;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<User> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(User.builder()
+                    .id(UUID.randomUUID().toString())
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .email("user" + i + "@bench.example.com")
+                    .age(String.valueOf(1 + i % 120))
+                    .build());
+        }
+        response = new ResponseBuilder()
+                .setStatusCode(200)
+                .setContentType("application/json")
+                .setBody(UserJson.userListWriter().writeValueAsBytes(users))
+                .build();
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() throws Exception {
+        return UserUtils.getAllUsers(response);
+    }
+
+    @Benchmark
+    public User extractFirstUser() throws Exception {
+        return UserUtils.extractFirstUser(response);
+    }
+}
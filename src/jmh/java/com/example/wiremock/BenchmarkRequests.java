@@ -0,0 +1,72 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds in-process WireMock requests and seed data for the stub benchmarks.
+ */
+final class BenchmarkRequests {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkRequests() {
+    }
+
+    static ObjectMapper objectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        return objectMapper;
+    }
+
+    static Request request(RequestMethod method, String url) {
+        return request(method, url, null);
+    }
+
+    static Request request(RequestMethod method, String url, String body, HttpHeader... headers) {
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        return new LoggedRequest(url, "http://localhost" + url, method, "127.0.0.1",
+                new HttpHeaders(headers), Collections.emptyMap(), false, new Date(), bytes, null, "HTTP/1.1");
+    }
+
+    static User user(int index) {
+        return User.builder()
+                .firstName("First" + (index % 1000))
+                .lastName("Last" + (index % 997))
+                .email("user" + index + "@bench.example.com")
+                .age(String.valueOf(1 + index % 120))
+                .build();
+    }
+
+    /**
+     * Seeds {@code size} users through bulk POSTs and returns their ids in insertion order.
+     */
+    static List<String> seed(InMemoryUserTransformer transformer, ObjectMapper objectMapper, int size)
+            throws Exception {
+        List<String> ids = new ArrayList<>(size);
+        for (int start = 0; start < size; start += SEED_BATCH_SIZE) {
+            List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = start; i < Math.min(size, start + SEED_BATCH_SIZE); i++) {
+                batch.add(user(i));
+            }
+            byte[] body = transformer.transform(request(RequestMethod.POST, "/users",
+                    objectMapper.writeValueAsString(batch)), null, null, null).getByteBody();
+            for (User created : objectMapper.readValue(body, User[].class)) {
+                ids.add(created.getId());
+            }
+        }
+        return ids;
+    }
+}
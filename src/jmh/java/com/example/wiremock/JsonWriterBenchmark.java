@@ -0,0 +1,47 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization through {@link UserJsonWriter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonWriterBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private UserJsonWriter writer;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        writer = new UserJsonWriter(BenchmarkRequests.objectMapper().getFactory());
+        users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            User user = BenchmarkRequests.user(i);
+            user.setId(UUID.randomUUID().toString());
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeUsers() {
+        return writer.writeUsers(users.iterator(), UserColumn.ALL).bytes();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link InMemoryUserTransformer#transform} for each HTTP method against stores of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransformBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int storeSize;
+
+    private final AtomicLong counter = new AtomicLong();
+    private InMemoryUserTransformer transformer;
+    private ObjectMapper objectMapper;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        objectMapper = BenchmarkRequests.objectMapper();
+        transformer = new InMemoryUserTransformer(objectMapper);
+        transformer.resetWithExisting(null);
+        ids = BenchmarkRequests.seed(transformer, objectMapper, storeSize);
+    }
+
+    @Benchmark
+    public ResponseDefinition getById() {
+        return transformer.transform(BenchmarkRequests.request(RequestMethod.GET,
+                "/users?id=eq." + randomId()), null, null, null);
+    }
+
+    @Benchmark
+    public ResponseDefinition getKeysetPage() {
+        return transformer.transform(BenchmarkRequests.request(RequestMethod.GET,
+                "/users?order=id.asc&limit=100&id=gt." + randomId()), null, null, null);
+    }
+
+    @Benchmark
+    public ResponseDefinition getFilteredScan() {
+        int age = 1 + ThreadLocalRandom.current().nextInt(120);
+        return transformer.transform(BenchmarkRequests.request(RequestMethod.GET,
+                "/users?age=eq." + age + "&limit=100"), null, null, null);
+    }
+
+    @Benchmark
+    public ResponseDefinition postThenDelete() throws Exception {
+        User user = BenchmarkRequests.user(storeSize + (int) counter.incrementAndGet());
+        ResponseDefinition created = transformer.transform(BenchmarkRequests.request(RequestMethod.POST, "/users",
+                objectMapper.writeValueAsString(user)), null, null, null);
+        String id = objectMapper.readValue(created.getByteBody(), User[].class)[0].getId();
+        return transformer.transform(BenchmarkRequests.request(RequestMethod.DELETE,
+                "/users?id=eq." + id), null, null, null);
+    }
+
+    @Benchmark
+    public ResponseDefinition patch() {
+        String body = "{\"first_name\":\"Patched" + (counter.incrementAndGet() % 100) + "\"}";
+        return transformer.transform(BenchmarkRequests.request(RequestMethod.PATCH,
+                "/users?id=eq." + randomId(), body), null, null, null);
+    }
+
+    private String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
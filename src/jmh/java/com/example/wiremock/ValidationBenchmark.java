@@ -0,0 +1,57 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserValidator} on a valid body and on the invalid bodies the negative scenarios send,
+ * plus the full 400 path including the error body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    private final UserValidator validator = UserValidator.supabaseUsers();
+    private final UserJsonWriter writer = new UserJsonWriter(BenchmarkRequests.objectMapper().getFactory());
+    private final User valid = user("sid.ss@example.com", "28");
+    private final User invalidEmail = user("invalid-email", "28");
+    private final User nonNumericAge = user("a@sid.com", "h");
+    private final User ageOutOfRange = user("sid.ss@example.com", "200");
+
+    @Benchmark
+    public String valid() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public String invalidEmail() {
+        return validator.validate(invalidEmail);
+    }
+
+    @Benchmark
+    public String nonNumericAge() {
+        return validator.validate(nonNumericAge);
+    }
+
+    @Benchmark
+    public String ageOutOfRange() {
+        return validator.validate(ageOutOfRange);
+    }
+
+    @Benchmark
+    public byte[] invalidEmailErrorBody() {
+        return writer.writeError(validator.validate(invalidEmail), null);
+    }
+
+    private static User user(String email, String age) {
+        return User.builder().firstName("Sid").lastName("Selvan").email(email).age(age).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.context;
+
+import java.util.UUID;
+
+/**
+ * Keeps the data of one scenario apart from every other scenario running at the same time.
+ * <p>
+ * An isolated namespace has a random token: it is sent as the stub server's tenant header, and it is
+ * inserted before the {@code @} of every email the scenario writes or queries for, so fixtures such
+ * as {@code sid@selvan.com} become {@code sid.<token>@selvan.com} and never collide on the live
+ * table. The shared namespace leaves everything untouched.
+ */
+public final class ScenarioNamespace {
+
+    private static final ScenarioNamespace SHARED = new ScenarioNamespace(null);
+
+    private final String token;
+
+    private ScenarioNamespace(String token) {
+        this.token = token;
+    }
+
+    public static ScenarioNamespace shared() {
+        return SHARED;
+    }
+
+    public static ScenarioNamespace isolated() {
+        return new ScenarioNamespace(UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    public boolean isIsolated() {
+        return token != null;
+    }
+
+    /**
+     * Returns the tenant id for this scenario, or {@code null} for the shared namespace.
+     */
+    public String tenant() {
+        return token;
+    }
+
+    /**
+     * Rewrites every {@code local@domain} in {@code text} to {@code local.<token>@domain}. Works on a
+     * single email as well as on a query string such as {@code email=ilike.*@selvan.com}, where the
+     * pattern then only matches this scenario's rows. Text without {@code @} is returned as is.
+     */
+    public String qualify(String text) {
+        if (token == null || text == null || text.indexOf('@') < 0) {
+            return text;
+        }
+        return text.replace("@", "." + token + "@");
+    }
+}
@@ -1,17 +1,60 @@
 package com.example.context;
 
+import com.example.http.ApiClient;
 import com.example.models.User;
+import com.example.utils.UserJson;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Data
 public class TestContext {
     private RequestSpecification requestSpec;
+    // Non-blocking client with the same base URL and headers as requestSpec
+    private ApiClient apiClient;
     private Response response;
     private User currentUser;
     private User existingUser;
-    private ObjectMapper objectMapper;
+    private ObjectMapper objectMapper = UserJson.mapper();
     private String baseUrl;
+    private ScenarioNamespace namespace = ScenarioNamespace.shared();
+    // Ids of every user this scenario created, in creation order
+    private final Set<String> createdUserIds = new LinkedHashSet<>();
+    // Body of the current response, parsed on first use
+    @Setter(AccessLevel.NONE)
+    private JsonNode responseJson;
+
+    public void setResponse(Response response) {
+        this.response = response;
+        this.responseJson = null;
+    }
+
+    public JsonNode getResponseJson() {
+        if (responseJson == null) {
+            try {
+                responseJson = objectMapper.readTree(response.asByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return responseJson;
+    }
+
+    public void trackCreatedUsers(Collection<User> users) {
+        for (User user : users) {
+            if (user.getId() != null) {
+                createdUserIds.add(user.getId());
+            }
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking access to the user API, for requests that do not depend on each other's results and
+ * can be in flight together: cleanup batches and concurrent inserts.
+ * <p>
+ * Paths are relative to the client's base URL and may carry an already-encoded query string. The
+ * client adds the scenario's standard headers (API key, {@code Prefer}, tenant) to every request.
+ * Pick an implementation through {@link ApiClients}.
+ */
+public interface ApiClient {
+
+    /**
+     * Sends one request; the future fails only when no response arrived.
+     *
+     * @param body the request body, or {@code null} for none
+     */
+    CompletableFuture<ApiResponse> send(String method, String pathAndQuery, byte[] body);
+
+    default CompletableFuture<ApiResponse> get(String pathAndQuery) {
+        return send("GET", pathAndQuery, null);
+    }
+
+    default CompletableFuture<ApiResponse> post(String pathAndQuery, byte[] body) {
+        return send("POST", pathAndQuery, body);
+    }
+
+    default CompletableFuture<ApiResponse> delete(String pathAndQuery) {
+        return send("DELETE", pathAndQuery, null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.http;
+
+import io.restassured.http.Header;
+import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.SpecificationQuerier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chooses the {@link ApiClient} implementation. The {@value #CLIENT_PROPERTY} system property selects
+ * {@code jdk} (the default, {@link JdkApiClient}) or {@code rest-assured}
+ * ({@link RestAssuredApiClient}).
+ */
+public final class ApiClients {
+
+    public static final String CLIENT_PROPERTY = "api.client";
+
+    private ApiClients() {
+    }
+
+    /**
+     * Returns a client for {@code baseUrl} that sends the headers of {@code spec}.
+     */
+    public static ApiClient forSpec(String baseUrl, RequestSpecification spec) {
+        String client = System.getProperty(CLIENT_PROPERTY, "jdk");
+        switch (client) {
+            case "jdk":
+                return new JdkApiClient(baseUrl, headersOf(spec));
+            case "rest-assured":
+                return new RestAssuredApiClient(spec);
+            default:
+                throw new IllegalArgumentException("Unknown " + CLIENT_PROPERTY + " '" + client
+                        + "', expected jdk or rest-assured");
+        }
+    }
+
+    /**
+     * The headers a REST Assured spec would send, by name.
+     */
+    public static Map<String, String> headersOf(RequestSpecification spec) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header header : SpecificationQuerier.query(spec).getHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.http;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ApiClient} on the JDK's asynchronous {@link HttpClient}.
+ * <p>
+ * One client, and so one connection pool, is shared by the whole run. Against {@code https} hosts
+ * requests negotiate HTTP/2, which multiplexes every concurrent request over a single kept-alive
+ * connection; plain {@code http} (the local stub) stays on HTTP/1.1 and uses pooled keep-alive
+ * connections. The calling thread never waits: responses complete the returned futures on the
+ * client's executor.
+ */
+public final class JdkApiClient implements ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final String[] headers;
+    private final HttpClient.Version version;
+
+    /**
+     * @param headers sent with every request; {@code Content-Type} defaults to JSON when absent
+     */
+    public JdkApiClient(String baseUrl, Map<String, String> headers) {
+        this.baseUrl = baseUrl;
+        this.version = baseUrl.startsWith("https:") ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+        List<String> flattened = new ArrayList<>();
+        headers.forEach((name, value) -> {
+            flattened.add(name);
+            flattened.add(value);
+        });
+        if (headers.keySet().stream().noneMatch("Content-Type"::equalsIgnoreCase)) {
+            flattened.add("Content-Type");
+            flattened.add("application/json");
+        }
+        this.headers = flattened.toArray(new String[0]);
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse> send(String method, String pathAndQuery, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .version(version)
+                .timeout(REQUEST_TIMEOUT)
+                .headers(headers)
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> new ApiResponse(response.statusCode(), response.headers().map(),
+                        response.body()));
+    }
+}
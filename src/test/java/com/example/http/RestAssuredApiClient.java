@@ -0,0 +1,50 @@
+package com.example.http;
+
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * {@link ApiClient} that runs ordinary blocking REST Assured calls on a small daemon pool, so
+ * requests still overlap, at most {@value #THREADS} at a time. Useful when a request has to go
+ * through the REST Assured configuration and filters, e.g. for the timing report.
+ */
+public final class RestAssuredApiClient implements ApiClient {
+
+    private static final int THREADS = 4;
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "rest-assured-api-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RequestSpecification spec;
+
+    public RestAssuredApiClient(RequestSpecification spec) {
+        this.spec = spec;
+    }
+
+    @Override
+    public CompletableFuture<ApiResponse> send(String method, String pathAndQuery, byte[] body) {
+        return CompletableFuture.supplyAsync(() -> {
+            RequestSpecification request = given().spec(spec).urlEncodingEnabled(false);
+            if (body != null) {
+                request.body(body);
+            }
+            Response response = request.request(method, pathAndQuery);
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            response.getHeaders().forEach(header -> headers.computeIfAbsent(header.getName(),
+                    name -> new ArrayList<>()).add(header.getValue()));
+            return new ApiResponse(response.getStatusCode(), headers, response.asByteArray());
+        }, EXECUTOR);
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Drives {@code /users} with a number of concurrent clients on the JDK's asynchronous
+ * {@link HttpClient}.
+ * <p>
+ * A client is not a thread: it has one request in flight at a time and sends its next request from
+ * the completion callback of the previous one, so hundreds of clients share a small pool of callback
+ * threads. Callbacks are always handed to that pool, so a response that is already complete does not
+ * send the next request on the same stack, and a client whose callback fails still ends its run
+ * instead of leaving it waiting; the first such failure is rethrown by {@link #run}. Each client picks operations from a {@link LoadMix}; updates, deletes and by-id reads
+ * target users that client created earlier, falling back to a create (or a plain list read) while it
+ * has none. The run stops once the request budget is spent or the deadline has passed, whichever
+ * comes first.
+ */
+public final class LoadGenerator {
+
+    private static final String USER_ENDPOINT = "/users";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String[] headers;
+    private final ObjectMapper objectMapper;
+    private final UnaryOperator<String> emailQualifier;
+
+    /**
+     * @param headers        sent with every request, e.g. the API key and {@code Prefer}
+     * @param emailQualifier applied to every generated email, e.g. to move it into a scenario namespace
+     */
+    public LoadGenerator(HttpClient httpClient, String baseUrl, Map<String, String> headers,
+            ObjectMapper objectMapper, UnaryOperator<String> emailQualifier) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.emailQualifier = emailQualifier;
+        List<String> flattened = new ArrayList<>();
+        headers.forEach((name, value) -> {
+            flattened.add(name);
+            flattened.add(value);
+        });
+        this.headers = flattened.toArray(new String[0]);
+    }
+
+    public Run run(int clients, LoadMix mix, Duration duration, long maxRequests) throws InterruptedException {
+        ExecutorService callbacks = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), callbackThreads());
+        try {
+            Run run = new Run(mix, System.nanoTime() + duration.toNanos(), maxRequests, clients, callbacks);
+            for (int i = 0; i < clients; i++) {
+                run.new Client(i).sendNext();
+            }
+            // Every client finishes its in-flight request, which is bounded by the request timeout
+            if (!run.done.await(duration.plus(REQUEST_TIMEOUT).toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Load run did not finish in time");
+            }
+            if (run.failure.get() != null) {
+                throw new IllegalStateException("A load client failed", run.failure.get());
+            }
+            run.result.finish(System.nanoTime() - run.startNanos);
+            return run;
+        } finally {
+            callbacks.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory callbackThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "load-callback-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One load run: its result and the users it left behind.
+     */
+    public final class Run {
+        private final LoadMix mix;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final long maxRequests;
+        private final AtomicLong issued = new AtomicLong();
+        private final CountDownLatch done;
+        private final ExecutorService callbacks;
+        // First exception thrown while a client recorded a response or built its next request
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final LoadResult result = new LoadResult();
+        private final Queue<String> remainingIds = new ConcurrentLinkedQueue<>();
+        private final String runToken = UUID.randomUUID().toString().substring(0, 8);
+
+        private Run(LoadMix mix, long deadlineNanos, long maxRequests, int clients, ExecutorService callbacks) {
+            this.mix = mix;
+            this.deadlineNanos = deadlineNanos;
+            this.maxRequests = maxRequests;
+            this.done = new CountDownLatch(clients);
+            this.callbacks = callbacks;
+        }
+
+        public LoadResult result() {
+            return result;
+        }
+
+        /**
+         * Ids of users created during the run and not deleted by it.
+         */
+        public List<String> remainingIds() {
+            return new ArrayList<>(remainingIds);
+        }
+
+        private boolean mayIssue() {
+            return System.nanoTime() < deadlineNanos && issued.incrementAndGet() <= maxRequests;
+        }
+
+        private final class Client {
+            private final int number;
+            private final Random random;
+            private final ArrayDeque<String> ownIds = new ArrayDeque<>();
+            private long sequence;
+            private boolean finished;
+
+            private Client(int number) {
+                this.number = number;
+                this.random = new Random(31L * number + runToken.hashCode());
+            }
+
+            /**
+             * Sends this client's next request, or ends the client when the run is over or the
+             * request could not be sent.
+             */
+            private void sendNext() {
+                boolean sending = false;
+                try {
+                    if (failure.get() == null && mayIssue()) {
+                        send();
+                        sending = true;
+                    }
+                } finally {
+                    if (!sending) {
+                        finish();
+                    }
+                }
+            }
+
+            private void send() {
+                Operation operation = mix.pick(random);
+                if (operation.needsExistingUser() && ownIds.isEmpty()) {
+                    operation = Operation.CREATE;
+                }
+                Operation sent = operation;
+                String targetId = sent == Operation.CREATE || ownIds.isEmpty() ? null : randomOwnId();
+                HttpRequest request = request(sent, targetId);
+                long start = System.nanoTime();
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenCompleteAsync((response, error) -> {
+                            try {
+                                long latency = System.nanoTime() - start;
+                                boolean success = error == null
+                                        && response.statusCode() >= 200 && response.statusCode() < 300;
+                                result.record(sent, latency, success);
+                                if (success) {
+                                    onSuccess(sent, targetId, response.body());
+                                }
+                            } finally {
+                                sendNext();
+                            }
+                        }, callbacks)
+                        .whenComplete((ignored, callbackError) -> {
+                            if (callbackError != null) {
+                                failure.compareAndSet(null, callbackError instanceof CompletionException
+                                        ? callbackError.getCause() : callbackError);
+                            }
+                        });
+            }
+
+            private void finish() {
+                if (!finished) {
+                    finished = true;
+                    remainingIds.addAll(ownIds);
+                    done.countDown();
+                }
+            }
+
+            private HttpRequest request(Operation operation, String targetId) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder()
+                        .timeout(REQUEST_TIMEOUT)
+                        .header("Content-Type", "application/json");
+                if (headers.length > 0) {
+                    builder.headers(headers);
+                }
+                String idFilter = targetId == null ? null : "?id=eq." + targetId;
+                switch (operation) {
+                    case CREATE:
+                        return builder.uri(uri(""))
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(newUser()))
+                                .build();
+                    case READ:
+                        return builder.uri(uri(idFilter == null ? "?limit=10" : idFilter)).GET().build();
+                    case UPDATE:
+                        return builder.uri(uri(idFilter))
+                                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"first_name\":\"Updated\"}"))
+                                .build();
+                    case DELETE:
+                        return builder.uri(uri(idFilter)).DELETE().build();
+                    default:
+                        throw new IllegalArgumentException(operation.toString());
+                }
+            }
+
+            private void onSuccess(Operation operation, String targetId, byte[] body) {
+                if (operation == Operation.CREATE) {
+                    String id = createdId(body);
+                    if (id != null) {
+                        ownIds.add(id);
+                    }
+                } else if (operation == Operation.DELETE) {
+                    ownIds.remove(targetId);
+                }
+            }
+
+            private String randomOwnId() {
+                int skip = random.nextInt(ownIds.size());
+                for (String id : ownIds) {
+                    if (skip-- == 0) {
+                        return id;
+                    }
+                }
+                throw new AssertionError();
+            }
+
+            private byte[] newUser() {
+                ObjectNode user = objectMapper.createObjectNode()
+                        .put("first_name", "Load")
+                        .put("last_name", "Client" + number)
+                        .put("email", emailQualifier.apply(
+                                "load" + number + "." + sequence++ + "." + runToken + "@example.com"))
+                        .put("age", "30");
+                try {
+                    return objectMapper.writeValueAsBytes(user);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            private String createdId(byte[] body) {
+                try {
+                    JsonNode created = objectMapper.readTree(body);
+                    JsonNode first = created.isArray() ? created.path(0) : created;
+                    return first.hasNonNull("id") ? first.get("id").asText() : null;
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    private URI uri(String query) {
+        return URI.create(baseUrl + USER_ENDPOINT + query);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.load;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Relative weights of the operations a load run sends, e.g. 40 create / 40 read / 10 update /
+ * 10 delete.
+ */
+public final class LoadMix {
+
+    private final int[] cumulativeWeights = new int[Operation.values().length];
+
+    public LoadMix(Map<Operation, Integer> weights) {
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            int weight = weights.getOrDefault(operation, 0);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + operation + ": " + weight);
+            }
+            total += weight;
+            cumulativeWeights[operation.ordinal()] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Load mix has no operations: " + weights);
+        }
+    }
+
+    public static LoadMix readOnly() {
+        return new LoadMix(Map.of(Operation.READ, 1));
+    }
+
+    Operation pick(Random random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Operation operation : Operation.values()) {
+            if (roll < cumulativeWeights[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        throw new AssertionError(roll);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms, error counts and overall throughput of one load run.
+ * <p>
+ * Latencies are recorded in microseconds with three significant digits, up to one minute; anything
+ * slower is clamped to the maximum instead of being dropped.
+ */
+public final class LoadResult {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private volatile long elapsedNanos;
+
+    LoadResult() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS);
+        latencies.get(operation).recordValue(micros);
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long requests(Operation operation) {
+        return latencies.get(operation).getTotalCount();
+    }
+
+    public long requests() {
+        long total = 0;
+        for (Histogram histogram : latencies.values()) {
+            total += histogram.getTotalCount();
+        }
+        return total;
+    }
+
+    public long errors() {
+        long total = 0;
+        for (LongAdder adder : errors.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Latency at {@code percentile} (0-100) for {@code operation}, in milliseconds.
+     */
+    public double latencyMillis(Operation operation, double percentile) {
+        return latencies.get(operation).getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Completed requests per second over the whole run.
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : requests() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format("%d requests in %.1f s (%.0f req/s), %d errors%n",
+                requests(), elapsedNanos / 1e9, throughput(), errors()));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("  %-6s n=%-7d errors=%-5d p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    operation, histogram.getTotalCount(), errors.get(operation).sum(),
+                    latencyMillis(operation, 50), latencyMillis(operation, 99), histogram.getMaxValue() / 1000.0));
+        }
+        return summary.toString();
+    }
+}
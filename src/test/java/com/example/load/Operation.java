@@ -0,0 +1,22 @@
+package com.example.load;
+
+/**
+ * The {@code /users} calls a load client can make.
+ */
+public enum Operation {
+    CREATE,
+    READ,
+    UPDATE,
+    DELETE;
+
+    public static Operation forName(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Whether the call targets a user the client created earlier.
+     */
+    boolean needsExistingUser() {
+        return this == UPDATE || this == DELETE;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms keyed by name (a step pattern, a scenario, an endpoint), safe to record into
+ * from any thread.
+ * <p>
+ * Values are kept in microseconds with three significant digits, up to ten minutes; anything slower
+ * is clamped to the maximum.
+ */
+public final class LatencyStats {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String key, long nanos) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_MICROS);
+        histograms.computeIfAbsent(key, k -> new ConcurrentHistogram(MAX_MICROS, 3)).recordValue(micros);
+    }
+
+    /**
+     * Percentile summaries of everything recorded so far, sorted by key.
+     */
+    public Map<String, LatencySummary> summaries() {
+        Map<String, LatencySummary> summaries = new TreeMap<>();
+        histograms.forEach((key, histogram) -> summaries.put(key, LatencySummary.of(histogram)));
+        return summaries;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.perf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Count and latency percentiles of one histogram, in milliseconds. This is what the performance
+ * report and its baseline contain.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencySummary {
+    private long count;
+    private double p50;
+    private double p90;
+    private double p95;
+    private double p99;
+    private double max;
+
+    static LatencySummary of(Histogram histogram) {
+        return new LatencySummary(histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(95)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fails the build when the last performance report recorded steps slower than the baseline allows.
+ * <p>
+ * The {@code perf-baseline} Maven profile runs it right after the tests, with the JSON report and
+ * the baseline as arguments; {@link PerformanceReportPlugin} does the comparison and writes the
+ * regressions into the report.
+ */
+public final class PerformanceBaselineCheck {
+
+    private PerformanceBaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: PerformanceBaselineCheck <report.json> <baseline.json>");
+        }
+        File report = new File(args[0]);
+        File baseline = new File(args[1]);
+        if (!baseline.isFile()) {
+            throw new IllegalStateException("No performance baseline at " + baseline
+                    + "; save a report there first, e.g. cp target/perf-report.json " + baseline);
+        }
+        if (!report.isFile()) {
+            throw new IllegalStateException("No performance report at " + report + "; did the tests run?");
+        }
+
+        List<String> regressions = new ArrayList<>();
+        new ObjectMapper().readTree(report).path("regressions").forEach(line -> regressions.add(line.asText()));
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("Steps slower than the baseline " + baseline + " allows:\n  "
+                    + String.join("\n  ", regressions));
+        }
+        System.out.println("No step is slower than the baseline " + baseline + " allows");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.perf;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cucumber plugin that writes per-scenario, per-step and per-endpoint latency percentiles as JSON
+ * and HTML, and records in the report which steps got slower than the baseline allows.
+ * <p>
+ * Register it with the JSON report path as argument, e.g.
+ * {@code com.example.perf.PerformanceReportPlugin:target/perf-report.json}; the HTML report is
+ * written next to it. Steps are grouped by their step definition pattern, scenarios by name, and
+ * HTTP calls by what {@link TimingFilter} recorded.
+ * <p>
+ * Baseline comparison is opt-in and driven by system properties:
+ * <ul>
+ *     <li>{@code perf.baseline}: a previous JSON report; no comparison unless it is set and the file
+ *     exists</li>
+ *     <li>{@code perf.threshold}: allowed p95 slowdown as a fraction (default {@code 0.25})</li>
+ *     <li>{@code perf.minDeltaMillis}: slowdowns smaller than this never count (default {@code 5})</li>
+ * </ul>
+ * The plugin never fails the run itself; {@link PerformanceBaselineCheck} fails the build on the
+ * recorded regressions.
+ */
+public class PerformanceReportPlugin implements ConcurrentEventListener {
+
+    private final File jsonReport;
+    private final File htmlReport;
+    private final LatencyStats scenarios = new LatencyStats();
+    private final LatencyStats steps = new LatencyStats();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public PerformanceReportPlugin(File jsonReport) {
+        this.jsonReport = jsonReport;
+        String name = jsonReport.getName().replaceFirst("\\.json$", "");
+        this.htmlReport = new File(jsonReport.getAbsoluteFile().getParentFile(), name + ".html");
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepFinished.class, this::onStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onScenarioFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onRunFinished);
+    }
+
+    private void onStepFinished(TestStepFinished event) {
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            steps.record(((PickleStepTestStep) event.getTestStep()).getPattern(),
+                    event.getResult().getDuration().toNanos());
+        }
+    }
+
+    private void onScenarioFinished(TestCaseFinished event) {
+        scenarios.record(event.getTestCase().getName(), event.getResult().getDuration().toNanos());
+    }
+
+    private void onRunFinished(TestRunFinished event) {
+        Report report = new Report();
+        report.scenarios = scenarios.summaries();
+        report.steps = steps.summaries();
+        report.http = httpSummaries();
+        report.regressions = regressions(report.steps);
+
+        try {
+            Files.createDirectories(jsonReport.getAbsoluteFile().getParentFile().toPath());
+            objectMapper.writeValue(jsonReport, report);
+            Files.write(htmlReport.toPath(), html(report).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Map<String, LatencySummary>> httpSummaries() {
+        Map<String, Map<String, LatencySummary>> http = new LinkedHashMap<>();
+        TimingFilter.HttpTimings timings = TimingFilter.STATS;
+        addPhase(http, "dns", timings.dns());
+        addPhase(http, "connect", timings.connect());
+        addPhase(http, "ttfb", timings.ttfb());
+        addPhase(http, "total", timings.total());
+        return http;
+    }
+
+    private static void addPhase(Map<String, Map<String, LatencySummary>> http, String phase, LatencyStats stats) {
+        stats.summaries().forEach((endpoint, summary) ->
+                http.computeIfAbsent(endpoint, key -> new LinkedHashMap<>()).put(phase, summary));
+    }
+
+    private List<String> regressions(Map<String, LatencySummary> current) {
+        List<String> regressions = new ArrayList<>();
+        String baselinePath = System.getProperty("perf.baseline");
+        if (baselinePath == null || baselinePath.isEmpty()) {
+            return regressions;
+        }
+        File baselineFile = new File(baselinePath);
+        if (!baselineFile.isFile()) {
+            return regressions;
+        }
+        double threshold = Double.parseDouble(System.getProperty("perf.threshold", "0.25"));
+        double minDelta = Double.parseDouble(System.getProperty("perf.minDeltaMillis", "5"));
+
+        Map<String, LatencySummary> baseline;
+        try {
+            baseline = objectMapper.convertValue(objectMapper.readTree(baselineFile).path("steps"),
+                    new TypeReference<Map<String, LatencySummary>>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read baseline " + baselineFile, e);
+        }
+        current.forEach((step, summary) -> {
+            LatencySummary before = baseline.get(step);
+            if (before == null) {
+                return;
+            }
+            double delta = summary.getP95() - before.getP95();
+            if (delta > minDelta && summary.getP95() > before.getP95() * (1 + threshold)) {
+                regressions.add(String.format("%s: p95 %.1f ms, baseline %.1f ms", step, summary.getP95(),
+                        before.getP95()));
+            }
+        });
+        return regressions;
+    }
+
+    private static String html(Report report) {
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Performance report</title>\n")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:2em}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}")
+                .append("td:first-child,th:first-child{text-align:left}.regression{color:#b00}</style>\n")
+                .append("</head><body>\n<h1>Performance report</h1>\n");
+        if (!report.regressions.isEmpty()) {
+            html.append("<h2 class=\"regression\">Regressions</h2>\n<ul>\n");
+            report.regressions.forEach(line -> html.append("<li class=\"regression\">").append(escape(line))
+                    .append("</li>\n"));
+            html.append("</ul>\n");
+        }
+        table(html, "Scenarios", report.scenarios);
+        table(html, "Steps", report.steps);
+        report.http.forEach((endpoint, phases) -> table(html, "HTTP " + endpoint, phases));
+        return html.append("</body></html>\n").toString();
+    }
+
+    private static void table(StringBuilder html, String title, Map<String, LatencySummary> rows) {
+        html.append("<h2>").append(escape(title)).append("</h2>\n<table>\n")
+                .append("<tr><th></th><th>count</th><th>p50 ms</th><th>p90 ms</th><th>p95 ms</th>")
+                .append("<th>p99 ms</th><th>max ms</th></tr>\n");
+        rows.forEach((name, summary) -> html.append(String.format(
+                "<tr><td>%s</td><td>%d</td><td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td></tr>%n",
+                escape(name), summary.getCount(), summary.getP50(), summary.getP90(), summary.getP95(),
+                summary.getP99(), summary.getMax())));
+        html.append("</table>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Layout of the JSON report; a saved report doubles as the baseline for later runs.
+     */
+    static final class Report {
+        public Map<String, LatencySummary> scenarios;
+        public Map<String, LatencySummary> steps;
+        public Map<String, Map<String, LatencySummary>> http;
+        public List<String> regressions;
+    }
+}
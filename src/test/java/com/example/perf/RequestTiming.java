@@ -0,0 +1,34 @@
+package com.example.perf;
+
+/**
+ * Phase timings of the HTTP request currently being sent on this thread.
+ * <p>
+ * {@link TimingFilter} opens a timing around each REST Assured request; the hooks in
+ * {@link TimedHttpClient} add to it from the same thread. Phases that did not happen (no lookup for
+ * an IP literal, no connect for a pooled connection) stay at zero.
+ */
+final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    long dnsNanos;
+    long connectNanos;
+    long ttfbNanos;
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * The open timing on this thread, or {@code null} outside of a timed request.
+     */
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.perf;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.SystemDefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * REST Assured's default Apache client with hooks that time the phases of each request into the
+ * thread's {@link RequestTiming}: host name lookup, connect (including the TLS handshake for https),
+ * and time to first byte, measured from the request being sent to the response headers arriving.
+ */
+@SuppressWarnings("deprecation") // REST Assured is built on the 4.x AbstractHttpClient API
+public class TimedHttpClient extends SystemDefaultHttpClient {
+
+    @Override
+    protected ClientConnectionManager createClientConnectionManager() {
+        return new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault()) {
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+                return new TimedConnectionOperator(schemeRegistry);
+            }
+        };
+    }
+
+    @Override
+    protected HttpRequestExecutor createRequestExecutor() {
+        return new HttpRequestExecutor() {
+            @Override
+            protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection connection,
+                    HttpContext context) throws HttpException, IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.doReceiveResponse(request, connection, context);
+                } finally {
+                    RequestTiming timing = RequestTiming.current();
+                    if (timing != null) {
+                        timing.ttfbNanos += System.nanoTime() - start;
+                    }
+                }
+            }
+        };
+    }
+
+    private static final class TimedConnectionOperator extends DefaultClientConnectionOperator {
+
+        private TimedConnectionOperator(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        protected InetAddress[] resolveHostname(String host) throws UnknownHostException {
+            long start = System.nanoTime();
+            try {
+                return super.resolveHostname(host);
+            } finally {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) {
+                    timing.dnsNanos += System.nanoTime() - start;
+                }
+            }
+        }
+
+        @Override
+        public void openConnection(OperatedClientConnection connection, HttpHost target, InetAddress local,
+                HttpContext context, HttpParams params) throws IOException {
+            RequestTiming timing = RequestTiming.current();
+            long dnsBefore = timing == null ? 0 : timing.dnsNanos;
+            long start = System.nanoTime();
+            try {
+                super.openConnection(connection, target, local, context, params);
+            } finally {
+                if (timing != null) {
+                    // The lookup happens inside openConnection; count it once, under dns
+                    timing.connectNanos += System.nanoTime() - start - (timing.dnsNanos - dnsBefore);
+                }
+            }
+        }
+    }
+}
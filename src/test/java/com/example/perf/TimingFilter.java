@@ -0,0 +1,83 @@
+package com.example.perf;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Records DNS, connect, time-to-first-byte and total time of every request, keyed by
+ * {@code "<METHOD> <path> <status>"}, into the suite-wide {@link #STATS}.
+ * <p>
+ * The phase timings need the hooks in {@link TimedHttpClient}, so attach the filter together with
+ * {@link #config()}; without them only the total is meaningful.
+ */
+public class TimingFilter implements Filter {
+
+    public static final HttpTimings STATS = new HttpTimings();
+
+    /**
+     * REST Assured configuration that sends requests through a {@link TimedHttpClient}.
+     */
+    public static RestAssuredConfig config() {
+        return RestAssuredConfig.config()
+                .httpClient(HttpClientConfig.httpClientConfig().httpClientFactory(TimedHttpClient::new));
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+            FilterContext ctx) {
+        RequestTiming timing = RequestTiming.start();
+        long start = System.nanoTime();
+        int status = -1;
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            status = response.getStatusCode();
+            return response;
+        } finally {
+            long total = System.nanoTime() - start;
+            RequestTiming.end();
+            STATS.record(requestSpec.getMethod() + " " + requestSpec.getUserDefinedPath() + " "
+                    + (status < 0 ? "error" : String.valueOf(status)), timing, total);
+        }
+    }
+
+    /**
+     * Per-endpoint histograms for each request phase.
+     */
+    public static final class HttpTimings {
+        private final LatencyStats dns = new LatencyStats();
+        private final LatencyStats connect = new LatencyStats();
+        private final LatencyStats ttfb = new LatencyStats();
+        private final LatencyStats total = new LatencyStats();
+
+        private HttpTimings() {
+        }
+
+        private void record(String key, RequestTiming timing, long totalNanos) {
+            dns.record(key, timing.dnsNanos);
+            connect.record(key, timing.connectNanos);
+            ttfb.record(key, timing.ttfbNanos);
+            total.record(key, totalNanos);
+        }
+
+        public LatencyStats dns() {
+            return dns;
+        }
+
+        public LatencyStats connect() {
+            return connect;
+        }
+
+        public LatencyStats ttfb() {
+            return ttfb;
+        }
+
+        public LatencyStats total() {
+            return total;
+        }
+    }
+}
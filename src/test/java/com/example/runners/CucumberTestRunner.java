@@ -10,7 +10,8 @@ import static io.cucumber.junit.platform.engine.Constants.*;
 @Suite
 @IncludeEngines("cucumber")
 @SelectClasspathResource("features")
-@ConfigurationParameter(key = PLUGIN_PROPERTY_NAME, value = "pretty")
+@ConfigurationParameter(key = PLUGIN_PROPERTY_NAME,
+        value = "pretty, com.example.perf.PerformanceReportPlugin:target/perf-report.json")
 @ConfigurationParameter(key = GLUE_PROPERTY_NAME, value = "com.example.stepdefs")
 @ConfigurationParameter(key = "cucumber.publish.enabled", value = "false")
 public class CucumberTestRunner {
@@ -0,0 +1,80 @@
+package com.example.stepdefs;
+
+import com.example.context.TestContext;
+import com.example.wiremock.FaultProfile;
+import com.example.wiremock.UserStubServer;
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.en.Given;
+
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Makes the WireMock stub slow or flaky for one endpoint, e.g. {@code "GET /users"}, or
+ * {@code "/users"} for every method. Profiles apply to this scenario's requests only and are cleared
+ * when the next scenario resets the stub. Only the stub can be slowed down, so these scenarios are
+ * skipped against the live API.
+ */
+public class FaultSteps {
+
+    private final TestContext context;
+
+    public FaultSteps(TestContext context) {
+        this.context = context;
+    }
+
+    @Given("the stub delays {string} by {int} ms")
+    public void theStubDelaysBy(String endpoint, int millis) {
+        updateFaults(endpoint, profile -> profile.withFixedDelay(millis));
+    }
+
+    @Given("the stub delays {string} by {int} to {int} ms")
+    public void theStubDelaysByBetween(String endpoint, int lowerMillis, int upperMillis) {
+        updateFaults(endpoint, profile -> profile.withUniformDelay(lowerMillis, upperMillis));
+    }
+
+    @Given("the stub delays {string} log-normally with a median of {double} ms and sigma {double}")
+    public void theStubDelaysLogNormally(String endpoint, double medianMillis, double sigma) {
+        updateFaults(endpoint, profile -> profile.withLogNormalDelay(medianMillis, sigma));
+    }
+
+    /**
+     * Replays a latency distribution given as a two-column table of percentile and milliseconds.
+     */
+    @Given("the stub delays {string} by the latency percentiles:")
+    public void theStubDelaysByTheLatencyPercentiles(String endpoint, DataTable dataTable) {
+        updateFaults(endpoint, profile -> profile.withReplayedDelay(dataTable.asMap(Double.class, Long.class)));
+    }
+
+    @Given("the stub throttles {string} to {int} KB\\/s")
+    public void theStubThrottlesTo(String endpoint, int kilobytesPerSecond) {
+        updateFaults(endpoint, profile -> profile.withBandwidth(kilobytesPerSecond * 1024L));
+    }
+
+    @Given("the stub resets {double}% of {string} connections")
+    public void theStubResetsConnections(double percent, String endpoint) {
+        updateFaults(endpoint, profile -> profile.withConnectionResets(percent / 100));
+    }
+
+    @Given("the stub fails {double}% of {string} with status {int}")
+    public void theStubFailsWithStatus(double percent, String endpoint, int status) {
+        updateFaults(endpoint, profile -> profile.withServerErrors(percent / 100, status));
+    }
+
+    @Given("the stub serves every request promptly")
+    public void theStubServesEveryRequestPromptly() {
+        requireStub();
+        UserStubServer.shared().clearFaults(context.getNamespace().tenant());
+    }
+
+    private void updateFaults(String endpoint, UnaryOperator<FaultProfile> change) {
+        requireStub();
+        UserStubServer.shared().updateFaults(context.getNamespace().tenant(), endpoint, change);
+    }
+
+    private void requireStub() {
+        assumeTrue(CommonSteps.isWireMockEnabled(),
+                "Fault injection needs the WireMock stub; skipped against the live API");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.stepdefs;
+
+import com.example.context.TestContext;
+import com.example.http.ApiClients;
+import com.example.load.LoadGenerator;
+import com.example.load.LoadMix;
+import com.example.load.LoadResult;
+import com.example.load.Operation;
+import com.example.models.User;
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadSteps {
+
+    // Shared so connections are pooled across load scenarios
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final TestContext context;
+    private final Logger logger = LoggerFactory.getLogger(LoadSteps.class);
+    private LoadMix mix = LoadMix.readOnly();
+    private LoadResult result;
+
+    public LoadSteps(TestContext context) {
+        this.context = context;
+    }
+
+    @Given("the load mix is:")
+    public void theLoadMixIs(DataTable dataTable) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        dataTable.asMap(String.class, Integer.class)
+                .forEach((operation, weight) -> weights.put(Operation.forName(operation), weight));
+        mix = new LoadMix(weights);
+    }
+
+    @When("{int} concurrent clients send requests for {int} seconds")
+    public void concurrentClientsSendRequestsFor(int clients, int seconds) throws InterruptedException {
+        runLoad(clients, Duration.ofSeconds(seconds), Long.MAX_VALUE);
+    }
+
+    @When("{int} concurrent clients send {int} requests")
+    public void concurrentClientsSendRequests(int clients, int requests) throws InterruptedException {
+        runLoad(clients, Duration.ofMinutes(10), requests);
+    }
+
+    @Then("no load request should have failed")
+    public void noLoadRequestShouldHaveFailed() {
+        assertThat(result.errors()).as(result.toString()).isZero();
+    }
+
+    @Then("at most {double}% of load requests should have failed")
+    public void atMostOfLoadRequestsShouldHaveFailed(double percent) {
+        assertThat(result.errors() * 100.0).as(result.toString()).isLessThanOrEqualTo(percent * result.requests());
+    }
+
+    @Then("p{double} latency of {word} should be below {int} ms")
+    public void latencyShouldBeBelow(double percentile, String operation, int millis) {
+        Operation op = Operation.forName(operation);
+        assertThat(result.requests(op)).as("no %s requests were sent", op).isPositive();
+        assertThat(result.latencyMillis(op, percentile)).as(result.toString()).isLessThan(millis);
+    }
+
+    @Then("throughput should be at least {int} req\\/s")
+    public void throughputShouldBeAtLeast(int requestsPerSecond) {
+        assertThat(result.throughput()).as(result.toString()).isGreaterThanOrEqualTo(requestsPerSecond);
+    }
+
+    private void runLoad(int clients, Duration duration, long maxRequests) throws InterruptedException {
+        // Same headers as the scenario's request spec, including the tenant in parallel mode
+        Map<String, String> headers = ApiClients.headersOf(context.getRequestSpec());
+        headers.keySet().removeIf("Content-Type"::equalsIgnoreCase);
+
+        LoadGenerator generator = new LoadGenerator(HTTP_CLIENT, context.getBaseUrl(), headers,
+                context.getObjectMapper(), context.getNamespace()::qualify);
+        LoadGenerator.Run run = generator.run(clients, mix, duration, maxRequests);
+        result = run.result();
+        logger.info("Load run with {} clients:\n{}", clients, result);
+
+        List<User> leftovers = run.remainingIds().stream()
+                .map(id -> User.builder().id(id).build())
+                .collect(Collectors.toList());
+        context.trackCreatedUsers(leftovers);
+    }
+}
@@ -1,15 +1,26 @@
 package com.example.stepdefs;
 
 import com.example.context.TestContext;
+import com.example.http.ApiResponse;
 import com.example.models.User;
+import com.example.utils.UserJson;
 import com.example.utils.UserUtils;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.cucumber.datatable.DataTable;
 import io.cucumber.java.en.When;
+import io.restassured.builder.ResponseBuilder;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
 
 public class UserSteps {
 
@@ -26,13 +37,36 @@ public class UserSteps {
         context.setResponse(response);
     }
 
+    @When("I request users matching {string}")
+    public void iRequestUsersMatching(String query) {
+        RequestSpecification requestSpec = given().spec(context.getRequestSpec());
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String value = context.getNamespace().qualify(pair.substring(eq + 1));
+            requestSpec = requestSpec.queryParam(pair.substring(0, eq), value);
+        }
+        Response response = requestSpec.get(USER_ENDPOINT);
+        context.setResponse(response);
+    }
+
+    /**
+     * Looks up the users the last request created with {@code id=in.(...)}, listing their ids from
+     * highest to lowest so that the response is only in id order if the API sorted it.
+     */
+    @When("I request the created users by id, highest first, matching {string}")
+    public void iRequestTheCreatedUsersById(String query) {
+        String ids = context.getResponse().jsonPath().getList("id", String.class).stream()
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.joining(","));
+        iRequestUsersMatching("id=in.(" + ids + ")&" + query);
+    }
+
     @When("I create a user with the following details:")
-    public void iCreateAUserWithTheFollowingDetails(DataTable dataTable) throws JsonProcessingException {
+    public void iCreateAUserWithTheFollowingDetails(DataTable dataTable) throws IOException {
         Map<String, String> userData = dataTable.asMap(String.class, String.class);
-        ObjectMapper objectMapper = context.getObjectMapper();
 
-        User user = objectMapper.convertValue(userData, User.class);
-        String requestBody = objectMapper.writeValueAsString(user);
+        User user = qualifiedUser(userData);
+        byte[] requestBody = UserJson.userWriter().writeValueAsBytes(user);
 
         Response response = context.getRequestSpec()
                 .body(requestBody)
@@ -40,18 +74,94 @@ public class UserSteps {
         context.setResponse(response);
 
         if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-            context.setCurrentUser(UserUtils.extractFirstUser(objectMapper, response));
+            List<User> created = UserUtils.getAllUsers(response);
+            context.trackCreatedUsers(created);
+            context.setCurrentUser(created.get(0));
+        }
+    }
+
+    @When("I create the following users:")
+    public void iCreateTheFollowingUsers(DataTable dataTable) throws IOException {
+        List<User> users = dataTable.asMaps(String.class, String.class).stream()
+                .map(this::qualifiedUser)
+                .collect(Collectors.toList());
+        byte[] requestBody = UserJson.userListWriter().writeValueAsBytes(users);
+
+        Response response = given().spec(context.getRequestSpec())
+                .body(requestBody)
+                .post(USER_ENDPOINT);
+        context.setResponse(response);
+
+        if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+            List<User> created = UserUtils.getAllUsers(response);
+            context.trackCreatedUsers(created);
+            context.setCurrentUser(created.get(0));
+        }
+    }
+
+    /**
+     * Posts {@code body} as written, for payloads that a list of {@link User}s cannot express.
+     */
+    @When("I create users from the raw body {string}")
+    public void iCreateUsersFromTheRawBody(String body) throws IOException {
+        Response response = given().spec(context.getRequestSpec())
+                .body(context.getNamespace().qualify(body))
+                .post(USER_ENDPOINT);
+        context.setResponse(response);
+
+        if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+            context.trackCreatedUsers(UserUtils.getAllUsers(response));
+        }
+    }
+
+    /**
+     * Creates each row with its own POST, all in flight together. The response seen by the following
+     * steps is 201 with every created user when all rows succeed, or else the first failed row's
+     * response.
+     */
+    @When("I create the following users concurrently:")
+    public void iCreateTheFollowingUsersConcurrently(DataTable dataTable) throws IOException {
+        List<CompletableFuture<ApiResponse>> requests = new ArrayList<>();
+        for (Map<String, String> row : dataTable.asMaps(String.class, String.class)) {
+            byte[] requestBody = UserJson.userWriter().writeValueAsBytes(qualifiedUser(row));
+            requests.add(context.getApiClient().post(USER_ENDPOINT, requestBody));
+        }
+
+        // Rows are kept as returned, so the combined body is exactly what the API sent back
+        ArrayNode rows = context.getObjectMapper().createArrayNode();
+        ApiResponse failed = null;
+        for (CompletableFuture<ApiResponse> request : requests) {
+            ApiResponse response = request.join();
+            if (response.isSuccess()) {
+                rows.addAll((ArrayNode) context.getObjectMapper().readTree(response.body()));
+            } else if (failed == null) {
+                failed = response;
+            }
+        }
+        List<User> created = UserJson.userListReader().readValue(rows);
+        context.trackCreatedUsers(created);
+
+        if (failed != null) {
+            context.setResponse(failed.toRestAssured());
+            return;
+        }
+        context.setResponse(new ResponseBuilder()
+                .setStatusCode(201)
+                .setContentType("application/json")
+                .setBody(context.getObjectMapper().writeValueAsBytes(rows))
+                .build());
+        if (!created.isEmpty()) {
+            context.setCurrentUser(created.get(0));
         }
     }
 
     @When("I create a user with the following details with an invalid endpoint:")
     public void iCreateAUserWithTheFollowingDetailsWithAnInvalidEndpoint(DataTable dataTable)
-            throws JsonProcessingException {
+            throws IOException {
         Map<String, String> userData = dataTable.asMap(String.class, String.class);
-        ObjectMapper objectMapper = context.getObjectMapper();
 
-        User user = objectMapper.convertValue(userData, User.class);
-        String requestBody = objectMapper.writeValueAsString(user);
+        User user = qualifiedUser(userData);
+        byte[] requestBody = UserJson.userWriter().writeValueAsBytes(user);
 
         Response response = context.getRequestSpec()
                 .body(requestBody)
@@ -59,17 +169,18 @@ public class UserSteps {
         context.setResponse(response);
 
         if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-            context.setCurrentUser(UserUtils.extractFirstUser(objectMapper, response));
+            List<User> created = UserUtils.getAllUsers(response);
+            context.trackCreatedUsers(created);
+            context.setCurrentUser(created.get(0));
         }
     }
 
     @When("I update the user with the following details:")
-    public void iUpdateTheUserWithTheFollowingDetails(DataTable dataTable) throws JsonProcessingException {
+    public void iUpdateTheUserWithTheFollowingDetails(DataTable dataTable) throws IOException {
         Map<String, String> userData = dataTable.asMap(String.class, String.class);
-        ObjectMapper objectMapper = context.getObjectMapper();
 
-        User updatedUser = objectMapper.convertValue(userData, User.class);
-        String requestBody = objectMapper.writeValueAsString(updatedUser);
+        User updatedUser = qualifiedUser(userData);
+        byte[] requestBody = UserJson.userWriter().writeValueAsBytes(updatedUser);
 
         Response response = context.getRequestSpec()
                 .body(requestBody)
@@ -78,7 +189,7 @@ public class UserSteps {
         context.setResponse(response);
 
         if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
-            context.setCurrentUser(UserUtils.extractFirstUser(objectMapper, response));
+            context.setCurrentUser(UserUtils.extractFirstUser(response));
         }
     }
 
@@ -97,4 +208,13 @@ public class UserSteps {
                 .get(USER_ENDPOINT);
         context.setResponse(response);
     }
+
+    /**
+     * Maps a data table onto a {@link User}, moving its email into this scenario's namespace.
+     */
+    private User qualifiedUser(Map<String, String> userData) {
+        User user = context.getObjectMapper().convertValue(userData, User.class);
+        user.setEmail(context.getNamespace().qualify(user.getEmail()));
+        return user;
+    }
 }
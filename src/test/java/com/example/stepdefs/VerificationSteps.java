@@ -1,10 +1,13 @@
 package com.example.stepdefs;
 
 import com.example.context.TestContext;
+import com.example.utils.SchemaRegistry;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Then;
 
-import static io.restassured.module.jsv.JsonSchemaValidator.matchesJsonSchemaInClasspath;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -25,6 +28,11 @@ public class VerificationSteps {
                 .statusCode(expectedStatus);
     }
 
+    @Then("the response should take at least {int} ms")
+    public void theResponseShouldTakeAtLeast(int millis) {
+        assertThat(context.getResponse().getTime()).isGreaterThanOrEqualTo(millis);
+    }
+
     @And("the response should not be empty")
     public void theResponseShouldNotBeEmpty() {
         context.getResponse().then()
@@ -39,11 +47,24 @@ public class VerificationSteps {
                 .body("size()", equalTo(0));
     }
 
-    @And("the response should match the {string} schema")
-    public void theResponseShouldMatchTheUserSchema(String schemaFile) {
+    @And("the response should contain {int} user(s)")
+    public void theResponseShouldContainUsers(int expectedCount) {
         context.getResponse().then()
                 .assertThat()
-                .body(matchesJsonSchemaInClasspath(schemaFile));
+                .body("size()", equalTo(expectedCount));
+    }
+
+    @And("the response should list user ids in ascending order")
+    public void theResponseShouldListUserIdsInAscendingOrder() {
+        List<String> ids = context.getResponse().jsonPath().getList("id", String.class);
+        assertThat(ids).isSorted();
+    }
+
+    @And("the response should match the {string} schema")
+    public void theResponseShouldMatchTheUserSchema(String schemaFile) {
+        ProcessingReport report = SchemaRegistry.validate(schemaFile, context.getResponseJson());
+        assertThat(report.isSuccess()).as("%s does not match %s:%n%s", context.getResponseJson(), schemaFile, report)
+                .isTrue();
     }
 
     @And("the user's first name should be {string}")
@@ -58,7 +79,7 @@ public class VerificationSteps {
 
     @And("the user's email should be {string}")
     public void theUsersEmailShouldBe(String expectedEmail) {
-        assertThat(context.getCurrentUser().getEmail()).isEqualTo(expectedEmail);
+        assertThat(context.getCurrentUser().getEmail()).isEqualTo(context.getNamespace().qualify(expectedEmail));
     }
 
     @And("the user's age should be {string}")
@@ -0,0 +1,59 @@
+package com.example.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled JSON schemas from {@code src/test/resources}, loaded once per JVM.
+ * <p>
+ * Schemas are addressed by classpath path ({@code schemas/user-list-schema.json}) and compiled the
+ * first time they are asked for; the ones the features use are compiled up front. Compiled schemas
+ * are immutable, so one instance is shared by every scenario thread. Relative {@code $ref}s such as
+ * {@code user-schema.json} resolve against the referring schema's {@code resource:} URI.
+ */
+public final class SchemaRegistry {
+
+    private static final List<String> PRELOADED = List.of(
+            "schemas/user-schema.json",
+            "schemas/user-list-schema.json",
+            "schemas/error-response-schema.json");
+
+    private static final JsonSchemaFactory FACTORY = JsonSchemaFactory.byDefault();
+    private static final ConcurrentHashMap<String, JsonSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    static {
+        PRELOADED.forEach(SchemaRegistry::get);
+    }
+
+    private SchemaRegistry() {
+    }
+
+    public static JsonSchema get(String schemaFile) {
+        return SCHEMAS.computeIfAbsent(schemaFile, SchemaRegistry::compile);
+    }
+
+    /**
+     * Validates an already-parsed document against {@code schemaFile}.
+     */
+    public static ProcessingReport validate(String schemaFile, JsonNode document) {
+        try {
+            return get(schemaFile).validate(document);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Could not validate against " + schemaFile, e);
+        }
+    }
+
+    private static JsonSchema compile(String schemaFile) {
+        try {
+            return FACTORY.getJsonSchema("resource:/" + schemaFile);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Could not load schema " + schemaFile, e);
+        }
+    }
+}
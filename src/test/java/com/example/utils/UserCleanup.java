@@ -0,0 +1,92 @@
+package com.example.utils;
+
+import com.example.http.ApiClient;
+import com.example.http.ApiResponse;
+import com.example.models.User;
+import io.restassured.specification.RequestSpecification;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes users from the live table.
+ * <p>
+ * {@link #deleteAsync} removes exactly the ids it is given, sending one {@code DELETE id=in.(...)} per
+ * batch through an {@link ApiClient}, so all batches are in flight together rather than one round
+ * trip after another. Every batch is remembered until {@link #awaitPending()} collects it, so callers decide
+ * when they actually need the rows to be gone. {@link #deleteAll} is the old full-table sweep.
+ */
+public final class UserCleanup {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCleanup.class);
+    private static final String USER_ENDPOINT = "/users";
+    private static final int PAGE_SIZE = 1000;
+    // Keeps DELETE URLs well under the 8 KB request-line limit common to proxies
+    private static final int MAX_ID_FILTER_LENGTH = 4000;
+    private static final Queue<CompletableFuture<Void>> PENDING = new ConcurrentLinkedQueue<>();
+
+    private UserCleanup() {
+    }
+
+    /**
+     * Starts deleting {@code ids} in batches and returns a future that completes once every batch has
+     * been answered with {@code 204}.
+     */
+    public static CompletableFuture<Void> deleteAsync(ApiClient client, Collection<String> ids) {
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (String idFilter : UserUtils.idInFilters(ids, MAX_ID_FILTER_LENGTH)) {
+            batches.add(client.delete(USER_ENDPOINT + "?id=" + idFilter).thenAccept(UserCleanup::requireDeleted));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]));
+        PENDING.add(all);
+        logger.debug("Cleaning up users with IDs: {}", ids);
+        return all;
+    }
+
+    /**
+     * Waits for every delete started so far; rethrows the first failure once all have finished.
+     */
+    public static void awaitPending() {
+        List<CompletableFuture<Void>> started = new ArrayList<>();
+        for (CompletableFuture<Void> future; (future = PENDING.poll()) != null; ) {
+            started.add(future);
+        }
+        CompletableFuture.allOf(started.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Deletes every row in the table, walking it a page at a time and deleting each page before
+     * fetching the next. Returns the number of users deleted.
+     */
+    public static int deleteAll(RequestSpecification listSpec, ApiClient deleteClient) {
+        UserPageIterator pages = new UserPageIterator(listSpec, PAGE_SIZE);
+        int deleted = 0;
+        while (pages.hasNext()) {
+            List<String> idsToDelete = pages.next().stream()
+                    .map(User::getId)
+                    .filter(StringUtils::isNotBlank)
+                    .collect(Collectors.toList());
+            if (idsToDelete.isEmpty()) {
+                continue;
+            }
+            deleteAsync(deleteClient, idsToDelete).join();
+            deleted += idsToDelete.size();
+        }
+        return deleted;
+    }
+
+    private static void requireDeleted(ApiResponse response) {
+        if (response.status() != 204) {
+            throw new IllegalStateException("Deleting users failed with status " + response.status() + ": "
+                    + response.bodyAsString());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.utils;
+
+import com.example.models.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.util.List;
+
+/**
+ * The JVM-wide Jackson setup for talking to {@code /users}: one snake_case {@link ObjectMapper}
+ * and {@link ObjectReader}s and {@link ObjectWriter}s for {@link User} and {@code List<User>}
+ * built from it once.
+ * <p>
+ * A configured mapper is thread-safe, and readers and writers are immutable. So every scenario
+ * thread shares these instances, and the serializers Jackson builds for {@code User} are built once
+ * per run rather than once per scenario. The Blackbird module replaces reflective property access
+ * with generated lambdas.
+ */
+public final class UserJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .registerModule(new BlackbirdModule());
+    private static final ObjectReader USER_READER = MAPPER.readerFor(User.class);
+    private static final ObjectReader USER_LIST_READER = MAPPER.readerFor(new TypeReference<List<User>>() {});
+    private static final ObjectWriter USER_WRITER = MAPPER.writerFor(User.class);
+    private static final ObjectWriter USER_LIST_WRITER = MAPPER.writerFor(new TypeReference<List<User>>() {});
+
+    private UserJson() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader userReader() {
+        return USER_READER;
+    }
+
+    public static ObjectReader userListReader() {
+        return USER_LIST_READER;
+    }
+
+    public static ObjectWriter userWriter() {
+        return USER_WRITER;
+    }
+
+    public static ObjectWriter userListWriter() {
+        return USER_LIST_WRITER;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.utils;
+
+import com.example.models.User;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Walks {@code GET /users} one page at a time using keyset pagination
+ * ({@code order=id.asc&id=gt.<last id>&limit=<page size>}). Pages are fetched lazily, so at most one
+ * page is held in memory, and rows deleted between pages do not shift later pages the way
+ * {@code offset} paging would.
+ */
+public class UserPageIterator implements Iterator<List<User>> {
+
+    private static final String USER_ENDPOINT = "/users";
+
+    private final RequestSpecification baseSpec;
+    private final int pageSize;
+    private List<User> nextPage;
+    private String lastId;
+    private boolean exhausted;
+
+    public UserPageIterator(RequestSpecification baseSpec, int pageSize) {
+        this.baseSpec = baseSpec;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextPage == null && !exhausted) {
+            nextPage = fetchPage();
+            if (nextPage.isEmpty()) {
+                exhausted = true;
+                nextPage = null;
+            }
+        }
+        return nextPage != null;
+    }
+
+    @Override
+    public List<User> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<User> page = nextPage;
+        nextPage = null;
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        return page;
+    }
+
+    private List<User> fetchPage() {
+        RequestSpecification pageSpec = given()
+                .spec(baseSpec)
+                .queryParam("order", "id.asc")
+                .queryParam("limit", pageSize);
+        if (lastId != null) {
+            pageSpec.queryParam("id", "gt." + lastId);
+        }
+
+        Response response = pageSpec.get(USER_ENDPOINT);
+        if (response.getStatusCode() < 200 || response.getStatusCode() >= 300) {
+            throw new IllegalStateException("Listing users failed with status " + response.getStatusCode()
+                    + ": " + response.getBody().asString());
+        }
+
+        try {
+            List<User> page = UserUtils.getAllUsers(response);
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+            return page;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,22 +1,56 @@
 package com.example.utils;
 
 import com.example.models.User;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.MappingIterator;
 import io.restassured.response.Response;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class UserUtils {
-    public static User extractFirstUser(ObjectMapper objectMapper, Response response) throws JsonProcessingException {
-        List<User> createdUsers = getAllUsers(objectMapper, response);
-        return createdUsers.get(0);
+    /**
+     * Reads the first user of a {@code /users} response without binding the rest of the body.
+     *
+     * @return the first user, or {@code null} when the array is empty
+     */
+    public static User extractFirstUser(Response response) throws IOException {
+        try (MappingIterator<User> users = iterateUsers(response)) {
+            return users.hasNextValue() ? users.nextValue() : null;
+        }
     }
-    
-    public static List<User> getAllUsers(ObjectMapper objectMapper, Response response) throws JsonProcessingException {
-        String responseBody = response.getBody().asString();
-        List<User> createdUsers = objectMapper.readValue(responseBody, new TypeReference<List<User>>() {});
-        return createdUsers;
+
+    public static List<User> getAllUsers(Response response) throws IOException {
+        return UserJson.userListReader().readValue(response.asByteArray());
+    }
+
+    /**
+     * Binds the users of a {@code /users} response one at a time, straight from the buffered body
+     * bytes; a body holding a single object yields just that user.
+     */
+    private static MappingIterator<User> iterateUsers(Response response) throws IOException {
+        return UserJson.userReader().readValues(response.asByteArray());
+    }
+
+    /**
+     * Builds {@code in.(...)} filters covering {@code ids}, starting a new filter whenever the next
+     * id would push one past {@code maxFilterLength} characters, so each request URL stays within
+     * server and proxy limits.
+     */
+    public static List<String> idInFilters(Collection<String> ids, int maxFilterLength) {
+        List<String> filters = new ArrayList<>();
+        StringBuilder filter = new StringBuilder(maxFilterLength);
+        for (String id : ids) {
+            if (filter.length() > 0 && filter.length() + id.length() + 2 > maxFilterLength) {
+                filters.add(filter.append(')').toString());
+                filter.setLength(0);
+            }
+            filter.append(filter.length() == 0 ? "in.(" : ",").append(id);
+        }
+        if (filter.length() > 0) {
+            filters.add(filter.append(')').toString());
+        }
+        return filters;
     }
 }
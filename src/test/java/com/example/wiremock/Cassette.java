@@ -0,0 +1,199 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recorded request/response pairs, kept in columns and indexed by {@link RequestKey}.
+ * <p>
+ * Each recording is one slot: its key, status, the headers worth replaying and the body, which
+ * lives in one shared byte arena. A request sent more than once usually gets different answers (a
+ * search before and after a create), so the index points at a key's first recording and
+ * {@link #next} chains the later ones in the order they happened. The file holds the columns and the
+ * index table as they are in memory, so loading a cassette is a few bulk reads with nothing to
+ * rebuild. Recording is synchronized; a loaded cassette is only read.
+ */
+final class Cassette {
+
+    private static final int MAGIC = 0x55434153; // "UCAS"
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NONE = -1;
+    // Everything else (dates, server and CDN headers, lengths) is left to the replaying server
+    private static final String[] KEPT_HEADERS = {
+            "Content-Type", "Content-Range", "Content-Encoding", "ETag", "Location", "Preference-Applied"};
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] keyHashes = new int[INITIAL_CAPACITY];
+    private int[] statuses = new int[INITIAL_CAPACITY];
+    // Kept headers as "Name: value" lines
+    private String[] headers = new String[INITIAL_CAPACITY];
+    private int[] bodyOffsets = new int[INITIAL_CAPACITY];
+    private int[] bodyLengths = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    // Last recording of each key, kept at the key's first slot; only needed while recording
+    private int[] last = new int[INITIAL_CAPACITY];
+    private final SlotHashIndex firstByKey = new SlotHashIndex(slot -> keyHashes[slot]);
+    private byte[] bodyBytes = new byte[INITIAL_CAPACITY * 256];
+    private int bodyBytesUsed;
+    private int size;
+
+    synchronized void record(String key, int status, HttpHeaders responseHeaders, byte[] body) {
+        if (size == keys.length) {
+            grow(size * 2);
+        }
+        int first = find(key);
+        int slot = size;
+        keys[slot] = key;
+        keyHashes[slot] = key.hashCode();
+        statuses[slot] = status;
+        headers[slot] = keptHeaders(responseHeaders);
+        next[slot] = NONE;
+        appendBody(slot, body == null ? new byte[0] : body);
+        size++;
+
+        if (first == NONE) {
+            last[slot] = slot;
+            firstByKey.add(slot);
+        } else {
+            next[last[first]] = slot;
+            last[first] = slot;
+        }
+    }
+
+    /**
+     * Returns the first recording for {@code key}, or -1.
+     */
+    int find(String key) {
+        return firstByKey.find(key.hashCode(), slot -> keys[slot].equals(key));
+    }
+
+    /**
+     * Returns the recording made for the same key after {@code slot}, or -1.
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    int status(int slot) {
+        return statuses[slot];
+    }
+
+    HttpHeaders headers(int slot) {
+        List<HttpHeader> parsed = new ArrayList<>();
+        if (!headers[slot].isEmpty()) {
+            for (String line : headers[slot].split("\n")) {
+                int colon = line.indexOf(':');
+                parsed.add(new HttpHeader(line.substring(0, colon), line.substring(colon + 2)));
+            }
+        }
+        return new HttpHeaders(parsed);
+    }
+
+    byte[] body(int slot) {
+        return Arrays.copyOfRange(bodyBytes, bodyOffsets[slot], bodyOffsets[slot] + bodyLengths[slot]);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Writes the cassette to {@code file}, replacing it only once the new file is complete.
+     */
+    synchronized void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path written = parent.resolve(file.getFileName() + ".tmp");
+        try (SnapshotWriter out = new SnapshotWriter(written)) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            for (int slot = 0; slot < size; slot++) {
+                out.writeString(keys[slot]);
+                out.writeString(headers[slot]);
+            }
+            out.writeInts(keyHashes, size);
+            out.writeInts(statuses, size);
+            out.writeInts(next, size);
+            out.writeInts(bodyOffsets, size);
+            out.writeInts(bodyLengths, size);
+            out.writeInt(bodyBytesUsed);
+            out.writeBytes(bodyBytes, bodyBytesUsed);
+            firstByKey.writeTo(out);
+        }
+        Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a cassette written by {@link #writeTo} for replay.
+     */
+    static Cassette read(Path file) throws IOException {
+        try (SnapshotReader in = new SnapshotReader(file)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a cassette");
+            }
+            Cassette cassette = new Cassette();
+            int size = in.readInt();
+            cassette.grow(Math.max(size, INITIAL_CAPACITY));
+            for (int slot = 0; slot < size; slot++) {
+                cassette.keys[slot] = in.readString();
+                cassette.headers[slot] = in.readString();
+            }
+            in.readInts(cassette.keyHashes, size);
+            in.readInts(cassette.statuses, size);
+            in.readInts(cassette.next, size);
+            in.readInts(cassette.bodyOffsets, size);
+            in.readInts(cassette.bodyLengths, size);
+            cassette.bodyBytesUsed = in.readInt();
+            cassette.bodyBytes = new byte[cassette.bodyBytesUsed];
+            in.readBytes(cassette.bodyBytes, cassette.bodyBytesUsed);
+            cassette.firstByKey.readFrom(in);
+            cassette.size = size;
+            return cassette;
+        }
+    }
+
+    private static String keptHeaders(HttpHeaders responseHeaders) {
+        StringBuilder kept = new StringBuilder();
+        for (String name : KEPT_HEADERS) {
+            HttpHeader header = responseHeaders.getHeader(name);
+            if (header.isPresent()) {
+                for (String value : header.values()) {
+                    if (kept.length() > 0) {
+                        kept.append('\n');
+                    }
+                    kept.append(name).append(": ").append(value);
+                }
+            }
+        }
+        return kept.toString();
+    }
+
+    private void appendBody(int slot, byte[] body) {
+        if (bodyBytesUsed + body.length > bodyBytes.length) {
+            bodyBytes = Arrays.copyOf(bodyBytes, Math.max(bodyBytes.length * 2, bodyBytesUsed + body.length));
+        }
+        System.arraycopy(body, 0, bodyBytes, bodyBytesUsed, body.length);
+        bodyOffsets[slot] = bodyBytesUsed;
+        bodyLengths[slot] = body.length;
+        bodyBytesUsed += body.length;
+    }
+
+    private void grow(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        keyHashes = Arrays.copyOf(keyHashes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        headers = Arrays.copyOf(headers, capacity);
+        bodyOffsets = Arrays.copyOf(bodyOffsets, capacity);
+        bodyLengths = Arrays.copyOf(bodyLengths, capacity);
+        next = Arrays.copyOf(next, capacity);
+        last = Arrays.copyOf(last, capacity);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+
+/**
+ * Suite-scoped WireMock server that records the live API into a {@link Cassette}, or replays one.
+ * <p>
+ * The {@value #MODE_PROPERTY} system property selects the mode:
+ * <ul>
+ *     <li>{@code record}: the server proxies every request to the live API (or to
+ *     {@value #TARGET_PROPERTY} when set) and records each request and its response. The cassette
+ *     is written to {@value #FILE_PROPERTY} (default {@value #DEFAULT_FILE}) when the server stops,
+ *     replacing the previous one.</li>
+ *     <li>{@code replay}: the server answers from that file, with no network involved.</li>
+ * </ul>
+ * Recording captures whatever client sent the request, since clients only see the server's base URL.
+ */
+public final class CassetteServer {
+
+    public static final String MODE_PROPERTY = "cassette.mode";
+    public static final String FILE_PROPERTY = "cassette.file";
+    public static final String TARGET_PROPERTY = "cassette.target";
+    public static final String DEFAULT_FILE = "cassettes/users.cassette";
+
+    private static CassetteServer shared;
+
+    private final WireMockServer server;
+    private final Path file;
+    // Null when replaying
+    private final Cassette recording;
+
+    private CassetteServer(boolean record, String liveBaseUrl) {
+        file = Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+        WireMockConfiguration options = WireMockConfiguration.options()
+                .dynamicPort()
+                .disableRequestJournal();
+        if (record) {
+            recording = new Cassette();
+            server = new WireMockServer(options);
+            server.stubFor(any(anyUrl())
+                    .willReturn(aResponse().proxiedFrom(System.getProperty(TARGET_PROPERTY, liveBaseUrl))));
+            server.addMockServiceRequestListener((request, response) ->
+                    recording.record(RequestKey.of(request), response.getStatus(), response.getHeaders(),
+                            response.getBody()));
+        } else {
+            if (!Files.exists(file)) {
+                throw new IllegalStateException("No cassette at " + file.toAbsolutePath() + "; record one with -D"
+                        + MODE_PROPERTY + "=record");
+            }
+            Cassette cassette;
+            try {
+                cassette = Cassette.read(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the cassette " + file, e);
+            }
+            recording = null;
+            server = new WireMockServer(options.extensions(new CassetteTransformer(cassette)));
+            server.stubFor(any(anyUrl()).willReturn(aResponse().withTransformers(CassetteTransformer.NAME)));
+        }
+        server.start();
+    }
+
+    /**
+     * Whether {@value #MODE_PROPERTY} asks for recording or replaying.
+     */
+    public static boolean isEnabled() {
+        return mode() != null;
+    }
+
+    /**
+     * Returns the running server, starting it on first use; {@code liveBaseUrl} is the API recorded
+     * from.
+     */
+    public static synchronized CassetteServer shared(String liveBaseUrl) {
+        if (shared == null) {
+            String mode = mode();
+            if (!"record".equals(mode) && !"replay".equals(mode)) {
+                throw new IllegalStateException("Unknown " + MODE_PROPERTY + " '" + mode
+                        + "', expected record or replay");
+            }
+            shared = new CassetteServer("record".equals(mode), liveBaseUrl);
+        }
+        return shared;
+    }
+
+    /**
+     * Stops the server and, when recording, writes the cassette.
+     */
+    public static synchronized void stopShared() {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.server.stop();
+            if (shared.recording != null) {
+                shared.recording.writeTo(shared.file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the cassette " + shared.file, e);
+        } finally {
+            shared = null;
+        }
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    private static String mode() {
+        String mode = System.getProperty(MODE_PROPERTY);
+        return mode == null || mode.isBlank() ? null : mode.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.wiremock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Answers every request from a {@link Cassette}.
+ * <p>
+ * A request is looked up by its {@link RequestKey} in the cassette's hash index. Repeats of a key get
+ * the recordings for it in the order they were made, and the last one again once they run out; the
+ * position per key is a lock-free cursor. A request the cassette has no recording for gets a 501
+ * that names its key, so a scenario that drifted from the recorded run fails on the first request
+ * that differs.
+ */
+final class CassetteTransformer extends ResponseDefinitionTransformer {
+
+    static final String NAME = "cassette-transformer";
+
+    private final Cassette cassette;
+    // Per key, at its first recording: the recording to serve next, plus one; 0 means the first
+    private final AtomicIntegerArray cursors;
+    private final UserJsonWriter jsonWriter = new UserJsonWriter(new JsonFactory());
+
+    CassetteTransformer(Cassette cassette) {
+        this.cassette = cassette;
+        this.cursors = new AtomicIntegerArray(cassette.size());
+    }
+
+    @Override
+    public ResponseDefinition transform(Request request, ResponseDefinition responseDefinition, FileSource files,
+            Parameters parameters) {
+        String key = RequestKey.of(request);
+        int first = cassette.find(key);
+        if (first < 0) {
+            return new ResponseDefinitionBuilder()
+                    .withStatus(501)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(jsonWriter.writeError("No recorded response for this request", key))
+                    .build();
+        }
+        int slot = advance(first);
+        return new ResponseDefinitionBuilder()
+                .withStatus(cassette.status(slot))
+                .withHeaders(cassette.headers(slot))
+                .withBody(cassette.body(slot))
+                .build();
+    }
+
+    /**
+     * Returns the recording to serve for the key first recorded at {@code first} and moves its
+     * cursor on, unless it is the key's last recording.
+     */
+    private int advance(int first) {
+        while (true) {
+            int cursor = cursors.get(first);
+            int slot = cursor == 0 ? first : cursor - 1;
+            int following = cassette.next(slot);
+            if (following < 0 || cursors.compareAndSet(first, cursor, following + 1)) {
+                return slot;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+import com.github.tomakehurst.wiremock.http.FixedDelayDistribution;
+import com.github.tomakehurst.wiremock.http.LogNormal;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.http.UniformDistribution;
+
+import java.util.Map;
+
+/**
+ * How the stub misbehaves for one endpoint: a response delay, a bandwidth limit, and the share of
+ * requests answered with a connection reset or a server error instead of being served.
+ * <p>
+ * Profiles are immutable; each {@code with...} method returns a copy with one aspect changed. The
+ * delay and the bandwidth limit are handed to WireMock as a random delay and a chunked dribble, which
+ * the stub server runs on its asynchronous response executor, so a slow response never holds a
+ * Jetty worker thread.
+ */
+public final class FaultProfile {
+
+    private static final FaultProfile NONE = new FaultProfile(null, 0, 0, 0, 503);
+    // Smallest slice a throttled body is dribbled out in
+    private static final int MIN_CHUNK_BYTES = 1024;
+
+    private final DelayDistribution delay;
+    private final long bytesPerSecond;
+    private final double resetRate;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private FaultProfile(DelayDistribution delay, long bytesPerSecond, double resetRate, double errorRate,
+            int errorStatus) {
+        this.delay = delay;
+        this.bytesPerSecond = bytesPerSecond;
+        this.resetRate = resetRate;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * A profile that serves every request promptly.
+     */
+    public static FaultProfile none() {
+        return NONE;
+    }
+
+    public FaultProfile withFixedDelay(int millis) {
+        requireNonNegative(millis);
+        return withDelay(new FixedDelayDistribution(millis));
+    }
+
+    public FaultProfile withUniformDelay(int lowerMillis, int upperMillis) {
+        requireNonNegative(lowerMillis);
+        if (upperMillis < lowerMillis) {
+            throw new IllegalArgumentException("Upper delay " + upperMillis + " ms is below lower delay "
+                    + lowerMillis + " ms");
+        }
+        return withDelay(new UniformDistribution(lowerMillis, upperMillis));
+    }
+
+    /**
+     * Delays drawn from a log-normal distribution, the usual shape of network and database latency:
+     * half the requests wait less than {@code medianMillis}, and a larger {@code sigma} gives a
+     * longer tail.
+     */
+    public FaultProfile withLogNormalDelay(double medianMillis, double sigma) {
+        if (medianMillis <= 0 || sigma < 0) {
+            throw new IllegalArgumentException("Log-normal delay needs a positive median and a non-negative sigma");
+        }
+        return withDelay(new LogNormal(medianMillis, sigma));
+    }
+
+    /**
+     * Delays that replay a measured distribution, given as latency in milliseconds by percentile; see
+     * {@link HistogramDelay}.
+     */
+    public FaultProfile withReplayedDelay(Map<Double, Long> millisByPercentile) {
+        return withDelay(new HistogramDelay(millisByPercentile));
+    }
+
+    /**
+     * Sends response bodies at no more than {@code bytesPerSecond}.
+     */
+    public FaultProfile withBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Bandwidth must be positive: " + bytesPerSecond);
+        }
+        return new FaultProfile(delay, bytesPerSecond, resetRate, errorRate, errorStatus);
+    }
+
+    /**
+     * Resets the connection, without a response, for a {@code rate} (0-1) of requests.
+     */
+    public FaultProfile withConnectionResets(double rate) {
+        requireRate(rate, errorRate);
+        return new FaultProfile(delay, bytesPerSecond, rate, errorRate, errorStatus);
+    }
+
+    /**
+     * Answers a {@code rate} (0-1) of requests with {@code status} without serving them.
+     */
+    public FaultProfile withServerErrors(double rate, int status) {
+        requireRate(rate, resetRate);
+        if (status < 500 || status > 599) {
+            throw new IllegalArgumentException("Server error status must be 5xx: " + status);
+        }
+        return new FaultProfile(delay, bytesPerSecond, resetRate, rate, status);
+    }
+
+    double resetRate() {
+        return resetRate;
+    }
+
+    double errorRate() {
+        return errorRate;
+    }
+
+    int errorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Adds this profile's delay and bandwidth limit to {@code response}.
+     */
+    ResponseDefinition shape(ResponseDefinition response) {
+        byte[] body = bytesPerSecond > 0 ? response.getByteBody() : null;
+        boolean throttled = body != null && body.length > 0;
+        if (delay == null && !throttled) {
+            return response;
+        }
+
+        ResponseDefinitionBuilder builder = ResponseDefinitionBuilder.like(response);
+        if (delay != null) {
+            builder.withRandomDelay(delay);
+        }
+        if (throttled) {
+            int millis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, body.length * 1000L / bytesPerSecond));
+            int chunks = Math.max(1, Math.min(body.length / MIN_CHUNK_BYTES, millis));
+            builder.withChunkedDribbleDelay(chunks, millis);
+            if (delay == null) {
+                // WireMock only moves delayed responses off the Jetty thread, and the dribble sleeps
+                builder.withFixedDelay(1);
+            }
+        }
+        return builder.build();
+    }
+
+    private FaultProfile withDelay(DelayDistribution delay) {
+        return new FaultProfile(delay, bytesPerSecond, resetRate, errorRate, errorStatus);
+    }
+
+    private static void requireNonNegative(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + millis + " ms");
+        }
+    }
+
+    private static void requireRate(double rate, double otherRate) {
+        if (rate < 0 || rate > 1 || rate + otherRate > 1) {
+            throw new IllegalArgumentException("Fault rates must be between 0 and 1 and add up to at most 1: "
+                    + rate + " + " + otherRate);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.wiremock;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@link FaultProfile}s in force, per tenant and endpoint.
+ * <p>
+ * An endpoint is a method and a path, {@code "GET /users"}, or a bare path, {@code "/users"}, which
+ * covers every method without a profile of its own. Paths are matched exactly, without the query
+ * string. Lookups for a tenant without profiles are a single map miss, so requests pay nothing
+ * while no faults are configured.
+ */
+final class FaultProfiles {
+
+    private static final String ANY_METHOD = "*";
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, FaultProfile>> byTenant =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the profile of {@code endpoint} for {@code tenant} with {@code change} applied to it
+     * (to {@link FaultProfile#none()} when there is none yet).
+     */
+    void update(String tenant, String endpoint, UnaryOperator<FaultProfile> change) {
+        String key = key(endpoint);
+        byTenant.computeIfAbsent(tenant, ignored -> new ConcurrentHashMap<>())
+                .compute(key, (ignored, current) -> change.apply(current == null ? FaultProfile.none() : current));
+    }
+
+    void clear(String tenant) {
+        byTenant.remove(tenant);
+    }
+
+    /**
+     * Returns the profile for a request, or {@code null} when it should be served normally.
+     */
+    FaultProfile profileFor(String tenant, String method, String path) {
+        ConcurrentHashMap<String, FaultProfile> profiles = byTenant.get(tenant);
+        if (profiles == null) {
+            return null;
+        }
+        FaultProfile profile = profiles.get(method + ' ' + path);
+        return profile != null ? profile : profiles.get(ANY_METHOD + ' ' + path);
+    }
+
+    private static String key(String endpoint) {
+        String trimmed = endpoint.trim();
+        int space = trimmed.indexOf(' ');
+        String method = space < 0 ? ANY_METHOD : trimmed.substring(0, space).toUpperCase(Locale.ROOT);
+        String path = space < 0 ? trimmed : trimmed.substring(space + 1).trim();
+        if (!path.startsWith("/") || path.contains("?")) {
+            throw new IllegalArgumentException("Endpoint must be '[METHOD] /path' without a query: " + endpoint);
+        }
+        return method + ' ' + path;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replays a measured latency distribution, given as latencies at a few percentiles, e.g. the p50,
+ * p90, p99 and max of a run against the live API.
+ * <p>
+ * A sample picks a uniformly random percentile and interpolates linearly between the two nearest
+ * given points; percentiles below the first point take its latency, and above the last point the
+ * last latency. Sampling is a binary search over two small arrays and allocates nothing.
+ */
+final class HistogramDelay implements DelayDistribution {
+
+    private final double[] percentiles;
+    private final long[] millis;
+
+    /**
+     * @param latencies latency in milliseconds by percentile (0-100); latencies must not fall as
+     *                  the percentile rises
+     */
+    HistogramDelay(Map<Double, Long> latencies) {
+        if (latencies.isEmpty()) {
+            throw new IllegalArgumentException("A latency histogram needs at least one percentile");
+        }
+        TreeMap<Double, Long> sorted = new TreeMap<>(latencies);
+        percentiles = new double[sorted.size()];
+        millis = new long[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Double, Long> point : sorted.entrySet()) {
+            double percentile = point.getKey();
+            long latency = point.getValue();
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+            if (latency < 0 || (i > 0 && latency < millis[i - 1])) {
+                throw new IllegalArgumentException("Latency at p" + percentile + " must not be negative or below "
+                        + "the latency at a lower percentile: " + latency + " ms");
+            }
+            percentiles[i] = percentile;
+            millis[i] = latency;
+            i++;
+        }
+    }
+
+    @Override
+    public long sampleMillis() {
+        double percentile = ThreadLocalRandom.current().nextDouble(100);
+        int low = 0;
+        int high = percentiles.length - 1;
+        if (percentile <= percentiles[low]) {
+            return millis[low];
+        }
+        if (percentile >= percentiles[high]) {
+            return millis[high];
+        }
+        // Narrow to the two points around the percentile
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (percentiles[mid] <= percentile) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double fraction = (percentile - percentiles[low]) / (percentiles[high] - percentiles[low]);
+        return Math.round(millis[low] + fraction * (millis[high] - millis[low]));
+    }
+}
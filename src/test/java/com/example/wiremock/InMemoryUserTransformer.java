@@ -1,52 +1,158 @@
 package com.example.wiremock;
 
 import com.example.models.User;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.wiremock.UserQuery.QueryException;
+import com.example.wiremock.UserStore.Resolution;
+import com.example.wiremock.UserStore.UniqueViolationException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.extension.Parameters;
 import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 public class InMemoryUserTransformer extends ResponseDefinitionTransformer {
 
     public static final String NAME = "in-memory-user-transformer";
+    public static final String TENANT_HEADER = "X-Test-Tenant";
+    public static final String METRICS_PATH = "/__metrics";
+    // PostgREST's answer to a body that is not a single JSON value
+    private static final String INVALID_JSON = "Empty or invalid json";
+    // PostgreSQL's, when a row in the body is not a JSON object
+    private static final String NOT_AN_ARRAY_OF_OBJECTS =
+            "argument of json_populate_recordset must be an array of objects";
     private final ObjectMapper objectMapper;
-    private final Map<String, User> store = new LinkedHashMap<>();
+    private static final String DEFAULT_TENANT = "";
+    private final ConcurrentHashMap<String, UserStore> stores = new ConcurrentHashMap<>();
+    private final UserJsonWriter jsonWriter;
+    private final UserValidator validator = UserValidator.supabaseUsers();
+    private final ResponseCache responseCache = new ResponseCache(ResponseCache.DEFAULT_MAX_BYTES);
+    private final StubMetrics metrics = new StubMetrics();
+    private final FaultProfiles faults = new FaultProfiles();
+    private volatile StorePersistence persistence;
 
     public InMemoryUserTransformer(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.jsonWriter = new UserJsonWriter(objectMapper.getFactory());
     }
 
     public User resetWithExisting(User seed) {
-        store.clear();
+        return resetWithExisting(DEFAULT_TENANT, seed);
+    }
+
+    /**
+     * Swaps in an empty store for {@code tenant} and seeds it with {@code seed}. Requests carrying
+     * the {@value #TENANT_HEADER} header are served from their tenant's store, so scenarios running
+     * in parallel never see each other's rows; requests without it use the default store.
+     */
+    public User resetWithExisting(String tenant, User seed) {
+        faults.clear(tenant);
+        UserStore store = new UserStore();
+        StorePersistence persisted = persistence;
+        if (persisted != null && DEFAULT_TENANT.equals(tenant)) {
+            persisted.replace(store);
+        }
+        stores.put(tenant, store);
         if (seed == null) {
             return null;
         }
         User withId = ensureId(seed);
-        store.put(withId.getId(), withId);
+        store.insert(withId);
         return withId;
     }
 
-    private User ensureId(User user) {
-        if (StringUtils.isNotBlank(user.getId())) {
-            return user;
+    /**
+     * Appends {@code count} generated users to {@code tenant}'s store, the same users for the same
+     * {@code seed}; see {@link UserSeeder}. Returns the store's row count afterwards.
+     */
+    public int seed(String tenant, int count, long seed) {
+        return UserSeeder.seed(storeFor(tenant), count, seed);
+    }
+
+    /**
+     * Makes the default store durable in {@code directory}: restores it from the snapshot and journal
+     * there, then journals every write and snapshots it every {@code snapshotInterval}; see
+     * {@link StorePersistence}. Tenant stores stay in memory only.
+     */
+    public synchronized void persistDefaultStore(Path directory, Duration snapshotInterval) throws IOException {
+        closePersistence();
+        persistence = StorePersistence.open(directory, snapshotInterval);
+        stores.put(DEFAULT_TENANT, persistence.store());
+    }
+
+    /**
+     * Writes a final snapshot of the persisted default store, if any, and stops persisting it.
+     */
+    public synchronized void closePersistence() throws IOException {
+        if (persistence != null) {
+            persistence.close();
+            persistence = null;
         }
+    }
+
+    public int rowCount(String tenant) {
+        return storeFor(tenant).size();
+    }
+
+    public void dropTenant(String tenant) {
+        stores.remove(tenant);
+        faults.clear(tenant);
+    }
+
+    /**
+     * Changes how requests of {@code tenant} (the default store's when {@code null}) to
+     * {@code endpoint} are delayed, throttled or failed; see {@link FaultProfiles} for the endpoint
+     * format. Resetting the tenant's store clears its profiles.
+     */
+    public void updateFaults(String tenant, String endpoint, UnaryOperator<FaultProfile> change) {
+        faults.update(tenantKey(tenant), endpoint, change);
+    }
+
+    public void clearFaults(String tenant) {
+        faults.clear(tenantKey(tenant));
+    }
+
+    private UserStore storeFor(Request request) {
+        return storeFor(headerValue(request, TENANT_HEADER));
+    }
+
+    private static String tenantKey(String tenant) {
+        return tenant == null ? DEFAULT_TENANT : tenant;
+    }
+
+    private UserStore storeFor(String tenant) {
+        return stores.computeIfAbsent(tenantKey(tenant), key -> new UserStore());
+    }
+
+    private User ensureId(User user) {
+        String id = StringUtils.isNotBlank(user.getId()) ? user.getId() : UUID.randomUUID().toString();
+        return copyOf(user, id);
+    }
+
+    // Patches build a new user rather than touching the one they were handed.
+    private User copyOf(User user, String id) {
         return User.builder()
-                .id(UUID.randomUUID().toString())
+                .id(id)
                 .firstName(user.getFirstName())
                 .lastName(user.getLastName())
                 .email(user.getEmail())
@@ -58,7 +164,42 @@ public class InMemoryUserTransformer extends ResponseDefinitionTransformer {
     public ResponseDefinition transform(Request request, ResponseDefinition responseDefinition, FileSource files,
             Parameters parameters) {
         String path = request.getUrl().split("\\?")[0];
+        if (METRICS_PATH.equals(path)) {
+            return new ResponseDefinitionBuilder()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody(metrics.toJson(objectMapper.getFactory(), stores, responseCache))
+                    .build();
+        }
+
+        String method = request.getMethod().getName();
+        FaultProfile faultProfile = faults.profileFor(tenantKey(headerValue(request, TENANT_HEADER)), method, path);
+        long start = System.nanoTime();
+        ResponseDefinition response = faultProfile == null ? dispatch(request, path) : serve(request, path, faultProfile);
+        if (response.getFault() == null) {
+            metrics.recordRequest(method, response.getStatus(), System.nanoTime() - start);
+        }
+        return faultProfile == null ? response : faultProfile.shape(response);
+    }
+
+    /**
+     * Serves a request that has a fault profile: resets or fails its share of requests before they
+     * reach the store, so a failed write leaves no trace, and dispatches the rest.
+     */
+    private ResponseDefinition serve(Request request, String path, FaultProfile faultProfile) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < faultProfile.resetRate()) {
+            metrics.connectionReset();
+            return new ResponseDefinitionBuilder().withFault(Fault.CONNECTION_RESET_BY_PEER).build();
+        }
+        if (roll < faultProfile.resetRate() + faultProfile.errorRate()) {
+            metrics.injectedError();
+            return errorResponse(faultProfile.errorStatus(), "Injected server error");
+        }
+        return dispatch(request, path);
+    }
 
+    private ResponseDefinition dispatch(Request request, String path) {
         if ("/".equals(path)) {
             return new ResponseDefinitionBuilder()
                     .withStatus(200)
@@ -75,71 +216,180 @@ public class InMemoryUserTransformer extends ResponseDefinitionTransformer {
             return new ResponseDefinitionBuilder().withStatus(404).build();
         }
 
+        UserStore store = storeFor(request);
         RequestMethod method = request.getMethod();
         if (RequestMethod.GET.equals(method)) {
-            return handleGet(request);
+            return handleGet(request, store);
         }
         if (RequestMethod.POST.equals(method)) {
-            return handlePost(request);
+            return handlePost(request, store);
         }
         if (RequestMethod.PATCH.equals(method)) {
-            return handlePatch(request);
+            return handlePatch(request, store);
         }
         if (RequestMethod.DELETE.equals(method)) {
-            return handleDelete(request);
+            return handleDelete(request, store);
         }
         return new ResponseDefinitionBuilder().withStatus(405).build();
     }
 
-    private ResponseDefinition handleGet(Request request) {
-        String idFilter = getIdFilter(request);
-        List<User> users;
+    private ResponseDefinition handleGet(Request request, UserStore store) {
+        String range = headerValue(request, "Range");
+        String prefer = headerValue(request, "Prefer");
+        // count=estimated is served exactly: unfiltered counts are O(1) and filters are cheap to count here.
+        boolean counted = prefer != null && (prefer.contains("count=exact") || prefer.contains("count=estimated"));
+        String cacheKey = store.generation() + "|" + request.getUrl() + '|' + (range == null ? "" : range) + '|' + counted;
+
+        long version = store.version();
+        ResponseCache.Entry cached = responseCache.get(cacheKey, version);
+        // A cached entry means the query parsed; anything else is validated before an ETag can match
+        UserQuery parsed = null;
+        if (cached == null) {
+            try {
+                parsed = UserQuery.parse(request.getUrl(), range);
+            } catch (QueryException e) {
+                return errorResponse(400, e.getMessage());
+            }
+        }
 
-        if (idFilter == null) {
-            users = new ArrayList<>(store.values());
-        } else if (idFilter.startsWith("eq.")) {
-            String id = idFilter.substring(3);
-            users = store.values().stream()
-                    .filter(user -> id.equals(user.getId()))
-                    .collect(Collectors.toList());
-        } else if (idFilter.startsWith("in.(")) {
-            String csv = StringUtils.removeEnd(StringUtils.removeStart(idFilter, "in.("), ")");
-            List<String> ids = List.of(csv.split(","));
-            users = store.values().stream()
-                    .filter(user -> ids.contains(user.getId()))
-                    .collect(Collectors.toList());
+        String etag = ResponseCache.etag(cacheKey, version);
+        if (matchesEtag(headerValue(request, "If-None-Match"), etag)) {
+            metrics.notModified();
+            return new ResponseDefinitionBuilder()
+                    .withStatus(304)
+                    .withHeader("ETag", etag)
+                    .build();
+        }
+
+        if (cached != null) {
+            metrics.cacheHit();
         } else {
-            users = new ArrayList<>(store.values());
+            metrics.cacheMiss();
+            UserQuery query = parsed;
+            UserJsonWriter.Written body = store.read(
+                    () -> jsonWriter.writeUsers(query.execute(store).iterator(), query.getSelect()));
+            int rows = body.rows();
+            Long total = counted ? store.read(() -> query.count(store)) : null;
+            long start = query.getOffset();
+            String totalText = total == null ? "*" : total.toString();
+
+            if (rows == 0 && total != null && start > 0 && start >= total) {
+                return new ResponseDefinitionBuilder()
+                        .withStatus(416)
+                        .withHeader("Content-Range", "*/" + totalText)
+                        .build();
+            }
+
+            String contentRange = rows == 0
+                    ? "*/" + totalText
+                    : start + "-" + (start + rows - 1) + "/" + totalText;
+            int status = total != null && rows < total ? 206 : 200;
+            cached = responseCache.put(cacheKey, version, status, body.bytes(), contentRange);
         }
 
-        return jsonResponse(200, users);
+        return jsonResponse(cached.status(), cached.body(),
+                new HttpHeader("Content-Range", cached.contentRange()),
+                new HttpHeader("ETag", cached.etag()));
     }
 
-    private ResponseDefinition handlePost(Request request) {
-        try {
-            User newUser = objectMapper.readValue(request.getBodyAsString(), User.class);
-            String validationMessage = validatePayload(newUser);
-            if (validationMessage != null) {
-                return errorResponse(400, validationMessage);
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || etag.equals(StringUtils.removeStart(trimmed, "W/"))) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            Optional<User> duplicate = store.values().stream()
-                    .filter(user -> StringUtils.equalsIgnoreCase(user.getEmail(), newUser.getEmail()))
-                    .findFirst();
+    private ResponseDefinition handlePost(Request request, UserStore store) {
+        List<User> rows = new ArrayList<>();
+        boolean bulk;
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getBody())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return errorResponse(400, INVALID_JSON);
+            }
+            bulk = token == JsonToken.START_ARRAY;
+            if (bulk) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        return errorResponse(400, NOT_AN_ARRAY_OF_OBJECTS);
+                    }
+                    rows.add(objectMapper.readValue(parser, User.class));
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                rows.add(objectMapper.readValue(parser, User.class));
+            } else {
+                return errorResponse(400, NOT_AN_ARRAY_OF_OBJECTS);
+            }
+            if (parser.nextToken() != null) {
+                return errorResponse(400, INVALID_JSON);
+            }
+        } catch (MismatchedInputException e) {
+            return errorResponse(400, invalidColumnValue(e));
+        } catch (IOException e) {
+            return errorResponse(400, INVALID_JSON);
+        }
 
-            if (duplicate.isPresent()) {
-                return errorResponse(409, "users_email_key");
+        for (int i = 0; i < rows.size(); i++) {
+            String validationMessage = validator.validate(rows.get(i));
+            if (validationMessage != null) {
+                return errorResponse(400, validationMessage, bulk ? failingRow(i) : null);
             }
+            rows.set(i, ensureId(rows.get(i)));
+        }
 
-            User created = ensureId(newUser);
-            store.put(created.getId(), created);
-            return jsonResponse(201, List.of(created));
-        } catch (Exception e) {
-            return errorResponse(400, "invalid input syntax for type integer");
+        String prefer = headerValue(request, "Prefer");
+        Resolution resolution = Resolution.ERROR;
+        if (prefer != null && prefer.contains("resolution=merge-duplicates")) {
+            resolution = Resolution.MERGE;
+        } else if (prefer != null && prefer.contains("resolution=ignore-duplicates")) {
+            resolution = Resolution.IGNORE;
+        }
+        UserColumn conflictColumn = UserColumn.ID;
+        String onConflict = queryValue(request, "on_conflict");
+        if (onConflict != null) {
+            conflictColumn = UserColumn.forName(onConflict);
+            if (conflictColumn != UserColumn.ID && conflictColumn != UserColumn.EMAIL) {
+                return errorResponse(400,
+                        "there is no unique or exclusion constraint matching the ON CONFLICT specification");
+            }
+        }
+
+        try {
+            List<User> created = store.insertAll(rows, conflictColumn, resolution, this::applyPatch);
+            return jsonResponse(201, created);
+        } catch (UniqueViolationException e) {
+            return errorResponse(409, e.getMessage(), bulk ? failingRow(e.getRowIndex()) : null);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(400, e.getMessage());
+        }
+    }
+
+    private String failingRow(int index) {
+        return "Failing row at index " + index + " of the request body";
+    }
+
+    /**
+     * The error for a column given a JSON object or array, named by the column's SQL type.
+     */
+    private String invalidColumnValue(MismatchedInputException e) {
+        List<JsonMappingException.Reference> path = e.getPath();
+        UserColumn column = path.isEmpty() ? null : UserColumn.forName(path.get(path.size() - 1).getFieldName());
+        String type = "text";
+        if (column == UserColumn.ID) {
+            type = "uuid";
+        } else if (column != null && column.isNumeric()) {
+            type = "integer";
         }
+        return "invalid input syntax for type " + type;
     }
 
-    private ResponseDefinition handlePatch(Request request) {
+    private ResponseDefinition handlePatch(Request request, UserStore store) {
         try {
             String idFilter = getIdFilter(request);
             if (idFilter == null || !idFilter.startsWith("eq.")) {
@@ -147,59 +397,80 @@ public class InMemoryUserTransformer extends ResponseDefinitionTransformer {
             }
 
             String id = idFilter.substring(3);
-            User existing = store.get(id);
-            if (existing == null) {
-                return new ResponseDefinitionBuilder().withStatus(404).build();
-            }
-
             User updatedPayload = objectMapper.readValue(request.getBodyAsString(), User.class);
-            if (StringUtils.isNotBlank(updatedPayload.getFirstName())) {
-                existing.setFirstName(updatedPayload.getFirstName());
-            }
-            if (StringUtils.isNotBlank(updatedPayload.getLastName())) {
-                existing.setLastName(updatedPayload.getLastName());
-            }
-            if (StringUtils.isNotBlank(updatedPayload.getEmail())) {
-                existing.setEmail(updatedPayload.getEmail());
-            }
-            if (StringUtils.isNotBlank(updatedPayload.getAge())) {
-                existing.setAge(updatedPayload.getAge());
+            User updated = store.update(id, existing -> applyPatch(existing, updatedPayload));
+            if (updated == null) {
+                return new ResponseDefinitionBuilder().withStatus(404).build();
             }
-
-            store.put(existing.getId(), existing);
-            return jsonResponse(200, List.of(existing));
+            return jsonResponse(200, List.of(updated));
+        } catch (UniqueViolationException e) {
+            return errorResponse(409, e.getMessage());
         } catch (Exception e) {
             return errorResponse(400, "invalid input syntax for type integer");
         }
     }
 
-    private ResponseDefinition handleDelete(Request request) {
-        String idFilter = getIdFilter(request);
-        if (idFilter == null) {
+    private User applyPatch(User existing, User patch) {
+        User updated = copyOf(existing, existing.getId());
+        if (StringUtils.isNotBlank(patch.getFirstName())) {
+            updated.setFirstName(patch.getFirstName());
+        }
+        if (StringUtils.isNotBlank(patch.getLastName())) {
+            updated.setLastName(patch.getLastName());
+        }
+        if (StringUtils.isNotBlank(patch.getEmail())) {
+            updated.setEmail(patch.getEmail());
+        }
+        if (StringUtils.isNotBlank(patch.getAge())) {
+            updated.setAge(patch.getAge());
+        }
+        return updated;
+    }
+
+    private ResponseDefinition handleDelete(Request request, UserStore store) {
+        UserQuery query;
+        try {
+            query = UserQuery.parse(request.getUrl());
+        } catch (QueryException e) {
+            return errorResponse(400, e.getMessage());
+        }
+        if (!query.isFiltered()) {
             return new ResponseDefinitionBuilder().withStatus(404).build();
         }
 
-        if (idFilter.startsWith("in.(")) {
-            String csv = StringUtils.removeEnd(StringUtils.removeStart(idFilter, "in.("), ")");
-            List<String> list = List.of(csv.split(","));
-            for (String id : list) {
-                store.remove(id);
+        // Resolve the matching ids first; id=eq. and id=in.(...) are direct key lookups.
+        List<String> ids = store.read(() -> query.execute(store).map(User::getId).collect(Collectors.toList()));
+        List<User> removed = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            User user = store.remove(id);
+            if (user != null) {
+                removed.add(user);
             }
-            return new ResponseDefinitionBuilder().withStatus(204).build();
         }
 
-        if (idFilter.startsWith("eq.")) {
-            String id = idFilter.substring(3);
-            store.remove(id);
-            return jsonResponse(200, List.of());
+        HttpHeader contentRange = new HttpHeader("Content-Range", "*/" + removed.size());
+        String prefer = headerValue(request, "Prefer");
+        if (prefer == null || !prefer.contains("return=representation")) {
+            return new ResponseDefinitionBuilder()
+                    .withStatus(204)
+                    .withHeader(contentRange.key(), contentRange.firstValue())
+                    .build();
         }
+        return jsonResponse(200, jsonWriter.writeUsers(removed.iterator(), query.getSelect()).bytes(), contentRange);
+    }
 
-        return new ResponseDefinitionBuilder().withStatus(404).build();
+    private String headerValue(Request request, String name) {
+        HttpHeader header = request.header(name);
+        return header.isPresent() ? header.firstValue() : null;
     }
 
     private String getIdFilter(Request request) {
+        return queryValue(request, "id");
+    }
+
+    private String queryValue(Request request, String name) {
         try {
-            List<String> values = request.queryParameter("id").values();
+            List<String> values = request.queryParameter(name).values();
             if (values == null || values.isEmpty()) {
                 return null;
             }
@@ -209,95 +480,29 @@ public class InMemoryUserTransformer extends ResponseDefinitionTransformer {
         }
     }
 
-    private String validatePayload(User user) {
-        if (StringUtils.isBlank(user.getEmail())) {
-            return "\"email\" of relation \"users\" violates not-null constraint";
-        }
-        if (StringUtils.isBlank(user.getFirstName())) {
-            return "\"first_name\" of relation \"users\" violates not-null constraint";
-        }
-        if (StringUtils.isNotBlank(user.getEmail()) && !isValidEmail(user.getEmail())) {
-            return "check_email_format";
-        }
-
-        if (StringUtils.isBlank(user.getAge())) {
-            return "check_age_positive";
-        }
-
-        int age;
-        try {
-            age = Integer.parseInt(user.getAge());
-        } catch (NumberFormatException e) {
-            return "invalid input syntax for type integer";
-        }
-
-        if (age <= 0 || age >= 150) {
-            return "check_age_positive";
-        }
-
-        return null;
-    }
-
-    private boolean isValidEmail(String email) {
-        Pattern pattern = Pattern.compile("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
-        return pattern.matcher(email).matches();
-    }
-
     private ResponseDefinition errorResponse(int status, String message) {
-        Map<String, Object> errorBody = new LinkedHashMap<>();
-        errorBody.put("code", null);
-        errorBody.put("details", null);
-        errorBody.put("hint", null);
-        errorBody.put("message", message);
-        return jsonResponse(status, errorBody);
+        return errorResponse(status, message, null);
     }
 
-    private ResponseDefinition jsonResponse(int status, Object body) {
-        try {
-            Object prepared = prepareBody(body);
-            return new ResponseDefinitionBuilder()
-                    .withStatus(status)
-                    .withHeader("Content-Type", "application/json")
-                    .withBody(objectMapper.writeValueAsString(prepared))
-                    .build();
-        } catch (JsonProcessingException e) {
-            return new ResponseDefinitionBuilder().withStatus(500).withBody(e.getMessage()).build();
-        }
+    private ResponseDefinition errorResponse(int status, String message, String details) {
+        return jsonResponse(status, jsonWriter.writeError(message, details));
     }
 
-    private Object prepareBody(Object body) {
-        if (body instanceof List<?>) {
-            List<?> items = (List<?>) body;
-            List<Object> mapped = new ArrayList<>();
-            for (Object item : items) {
-                if (item instanceof User) {
-                    mapped.add(toResponseUser((User) item));
-                } else {
-                    mapped.add(item);
-                }
-            }
-            return mapped;
-        }
-
-        if (body instanceof User) {
-            return toResponseUser((User) body);
-        }
-
-        return body;
+    private ResponseDefinition jsonResponse(int status, List<User> users) {
+        return jsonResponse(status, jsonWriter.writeUsers(users.iterator(), UserColumn.ALL).bytes());
     }
 
-    private Map<String, Object> toResponseUser(User user) {
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("id", user.getId());
-        response.put("first_name", user.getFirstName());
-        response.put("last_name", user.getLastName());
-        response.put("email", user.getEmail());
-        try {
-            response.put("age", Integer.valueOf(user.getAge()));
-        } catch (Exception e) {
-            response.put("age", 0);
+    private ResponseDefinition jsonResponse(int status, byte[] body, HttpHeader... headers) {
+        ResponseDefinitionBuilder builder = new ResponseDefinitionBuilder()
+                .withStatus(status)
+                .withHeader("Content-Type", "application/json");
+        for (HttpHeader header : headers) {
+            builder.withHeader(header.key(), header.values().toArray(new String[0]));
         }
-        return response;
+        metrics.bytesOut(body.length);
+        return builder
+                .withBody(body)
+                .build();
     }
 
     @Override
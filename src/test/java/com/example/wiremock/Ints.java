@@ -0,0 +1,49 @@
+package com.example.wiremock;
+
+/**
+ * Exception-free int parsing for the stub's hot paths, where a {@code NumberFormatException}
+ * per malformed value would dominate the cost of the 400 responses it produces.
+ */
+final class Ints {
+
+    /** Returned by {@link #parse} when the text is not an int. */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private Ints() {
+    }
+
+    /**
+     * Parses an optional sign followed by ASCII digits, within int range. Unlike
+     * {@link Integer#parseInt(String)}, digits from other scripts are rejected, as PostgreSQL does.
+     *
+     * @return the value, or {@link #INVALID}
+     */
+    static long parse(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return INVALID;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = text.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i = 1;
+            if (text.length() == 1) {
+                return INVALID;
+            }
+        }
+        long value = 0;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                return INVALID;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? INVALID : value;
+    }
+}
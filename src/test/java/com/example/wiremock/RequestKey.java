@@ -0,0 +1,77 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.Request;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Reduces a request to the parts that decide the API's answer, so that a replayed request finds the
+ * response recorded for it however the client happened to spell it.
+ * <p>
+ * The key is the method, the path, the decoded query parameters in sorted order, the {@code Prefer}
+ * items in sorted order, the {@code Range} header and a digest of the body. Credentials, the tenant
+ * header and transport headers are left out.
+ */
+final class RequestKey {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int BODY_DIGEST_BYTES = 16;
+
+    private RequestKey() {
+    }
+
+    static String of(Request request) {
+        StringBuilder key = new StringBuilder(128);
+        key.append(request.getMethod().getName()).append(' ');
+        String url = request.getUrl();
+        int query = url.indexOf('?');
+        key.append(query < 0 ? url : url.substring(0, query));
+        if (query >= 0 && query < url.length() - 1) {
+            String[] params = url.substring(query + 1).split("&");
+            for (int i = 0; i < params.length; i++) {
+                params[i] = URLDecoder.decode(params[i], StandardCharsets.UTF_8);
+            }
+            Arrays.sort(params);
+            key.append('?').append(String.join("&", params));
+        }
+
+        String prefer = headerValue(request, "Prefer");
+        if (prefer != null) {
+            String[] items = prefer.split(",");
+            for (int i = 0; i < items.length; i++) {
+                items[i] = items[i].trim();
+            }
+            Arrays.sort(items);
+            key.append("\nprefer:").append(String.join(",", items));
+        }
+        String range = headerValue(request, "Range");
+        if (range != null) {
+            key.append("\nrange:").append(range.trim());
+        }
+        byte[] body = request.getBody();
+        if (body != null && body.length > 0) {
+            key.append("\nbody:").append(digest(body));
+        }
+        return key.toString();
+    }
+
+    private static String headerValue(Request request, String name) {
+        HttpHeader header = request.header(name);
+        return header.isPresent() ? header.firstValue() : null;
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return HEX.formatHex(hash, 0, BODY_DIGEST_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.wiremock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized {@code GET /users} bodies keyed by normalized request and tagged with the store
+ * version they were built from.
+ * <p>
+ * Keys start with the store's generation, and an entry is only served while that store is still
+ * at the entry's version, so any POST, PATCH or DELETE (or a reset that swaps the store) invalidates
+ * every entry at once without having to track which queries it touched. The ETag is
+ * derived from the key and version alone, so {@code If-None-Match} is answered without running the
+ * query. Every entry is charged its body, its key and a fixed overhead against the byte budget, and
+ * once that is exceeded the oldest entries are evicted until it fits again.
+ */
+final class ResponseCache {
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    // Entry object, map and queue nodes, and the status and header strings, roughly
+    private static final int ENTRY_OVERHEAD_BYTES = 192;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Every entry put and not yet evicted, oldest first, including ones since replaced under their key:
+    // those still hold their body until they are polled, so they stay charged until then
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final long maxBytes;
+
+    ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static String etag(String key, long version) {
+        return "\"" + Long.toHexString(version) + "-" + Integer.toHexString(key.hashCode()) + "\"";
+    }
+
+    /**
+     * Returns the entry for {@code key} if it was built at {@code version}, otherwise {@code null}.
+     */
+    Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.version == version ? entry : null;
+    }
+
+    Entry put(String key, long version, int status, byte[] body, String contentRange) {
+        Entry entry = new Entry(key, version, status, body, contentRange, etag(key, version));
+        if (entry.weight > maxBytes) {
+            return entry;
+        }
+        entries.put(key, entry);
+        insertionOrder.add(entry);
+        long total = cachedBytes.addAndGet(entry.weight);
+        while (total > maxBytes) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            entries.remove(oldest.key, oldest);
+            total = cachedBytes.addAndGet(-oldest.weight);
+        }
+        return entry;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long cachedBytes() {
+        return cachedBytes.get();
+    }
+
+    void clear() {
+        entries.clear();
+        insertionOrder.clear();
+        cachedBytes.set(0);
+    }
+
+    static final class Entry {
+        private final String key;
+        private final long version;
+        private final int status;
+        private final byte[] body;
+        private final String contentRange;
+        private final String etag;
+        private final long weight;
+
+        private Entry(String key, long version, int status, byte[] body, String contentRange, String etag) {
+            this.key = key;
+            this.version = version;
+            this.status = status;
+            this.body = body;
+            this.contentRange = contentRange;
+            this.etag = etag;
+            // Strings are charged two bytes a character
+            this.weight = ENTRY_OVERHEAD_BYTES + body.length
+                    + 2L * (key.length() + contentRange.length() + etag.length());
+        }
+
+        int status() {
+            return status;
+        }
+
+        byte[] body() {
+            return body;
+        }
+
+        String contentRange() {
+            return contentRange;
+        }
+
+        String etag() {
+            return etag;
+        }
+    }
+}
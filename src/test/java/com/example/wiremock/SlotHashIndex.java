@@ -0,0 +1,142 @@
+package com.example.wiremock;
+
+import java.io.IOException;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Open-addressing hash index from a row's key to its slot in {@link UserStore}'s columns.
+ * <p>
+ * The table holds nothing but {@code slot + 1} ints (0 marks a free bucket) and probes linearly, so
+ * an indexed row costs 8 bytes at the maximum load factor of one half instead of a map node and a
+ * boxed key. Keys themselves stay in the columns: callers pass a key's hash and a predicate that
+ * compares a candidate slot against the key, and {@code slotHash} recomputes the hash of an indexed
+ * slot when the table grows or a removal shifts entries back. Not thread-safe; the store guards it.
+ */
+final class SlotHashIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final IntUnaryOperator slotHash;
+    private int[] table = new int[INITIAL_CAPACITY];
+    private int size;
+
+    SlotHashIndex(IntUnaryOperator slotHash) {
+        this.slotHash = slotHash;
+    }
+
+    /**
+     * Returns the slot whose key has {@code hash} and satisfies {@code matches}, or -1.
+     */
+    int find(int hash, IntPredicate matches) {
+        int mask = table.length - 1;
+        for (int bucket = spread(hash) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = table[bucket] - 1;
+            if (matches.test(slot)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    void add(int slot) {
+        if (2 * (size + 1) > table.length) {
+            resize(table.length * 2);
+        }
+        insert(table, slot);
+        size++;
+    }
+
+    /**
+     * Grows the table up front so that {@code expectedSize} entries fit without further resizing.
+     */
+    void ensureCapacity(int expectedSize) {
+        int capacity = table.length;
+        while (capacity < 2 * expectedSize) {
+            capacity *= 2;
+        }
+        if (capacity > table.length) {
+            resize(capacity);
+        }
+    }
+
+    void remove(int slot) {
+        int mask = table.length - 1;
+        int bucket = spread(slotHash.applyAsInt(slot)) & mask;
+        while (table[bucket] != slot + 1) {
+            if (table[bucket] == 0) {
+                return;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        // Backward-shift deletion: pull later entries of the probe run into the gap
+        int gap = bucket;
+        for (int next = (gap + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = spread(slotHash.applyAsInt(table[next] - 1)) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+        }
+        table[gap] = 0;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Re-indexes exactly {@code slots}, e.g. after the store compacted its columns.
+     */
+    void rebuild(int[] slots, int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 2 * count) {
+            capacity *= 2;
+        }
+        table = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            insert(table, slots[i]);
+        }
+        size = count;
+    }
+
+    void writeTo(SnapshotWriter out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(table.length);
+        out.writeInts(table, table.length);
+    }
+
+    /**
+     * Loads a table written by {@link #writeTo}; the slots must hash as they did when it was written.
+     */
+    void readFrom(SnapshotReader in) throws IOException {
+        size = in.readInt();
+        table = new int[in.readInt()];
+        in.readInts(table, table.length);
+    }
+
+    private void resize(int capacity) {
+        int[] resized = new int[capacity];
+        for (int entry : table) {
+            if (entry != 0) {
+                insert(resized, entry - 1);
+            }
+        }
+        table = resized;
+    }
+
+    private void insert(int[] target, int slot) {
+        int mask = target.length - 1;
+        int bucket = spread(slotHash.applyAsInt(slot)) & mask;
+        while (target[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        target[bucket] = slot + 1;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.wiremock;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads what {@link SnapshotWriter} wrote by memory-mapping the file a window at a time, so
+ * primitive arrays are bulk-copied straight out of the page cache. Windows are remapped as reading
+ * moves on, which keeps files larger than one mapping readable.
+ */
+final class SnapshotReader implements Closeable {
+
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private ByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    SnapshotReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    int readInt() throws IOException {
+        return window(Integer.BYTES).getInt();
+    }
+
+    long readLong() throws IOException {
+        return window(Long.BYTES).getLong();
+    }
+
+    String readString() throws IOException {
+        byte[] bytes = new byte[readInt()];
+        readBytes(bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void readInts(int[] target, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            int batch = Math.min(count - done, WINDOW_SIZE / Integer.BYTES);
+            window(batch * Integer.BYTES).asIntBuffer().get(target, done, batch);
+            done += batch;
+        }
+    }
+
+    void readLongs(long[] target, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            int batch = Math.min(count - done, WINDOW_SIZE / Long.BYTES);
+            window(batch * Long.BYTES).asLongBuffer().get(target, done, batch);
+            done += batch;
+        }
+    }
+
+    void readBytes(byte[] target, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            int batch = Math.min(count - done, WINDOW_SIZE);
+            window(batch).get(target, done, batch);
+            done += batch;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Returns a buffer positioned at the next {@code bytes} bytes and moves past them.
+     */
+    private ByteBuffer window(int bytes) throws IOException {
+        if (position + bytes > size) {
+            throw new EOFException("Snapshot ends at " + size + " bytes, needed " + (position + bytes));
+        }
+        if (window == null || position < windowStart || position + bytes > windowStart + window.capacity()) {
+            long length = Math.min(Math.max(bytes, WINDOW_SIZE), size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            windowStart = position;
+        }
+        ByteBuffer view = window.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        view.position((int) (position - windowStart));
+        position += bytes;
+        return view;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.wiremock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a binary snapshot sequentially: little-endian primitives and primitive arrays, streamed
+ * through one direct buffer. {@link SnapshotReader} reads the same layout back through memory maps.
+ */
+final class SnapshotWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, bytes.length);
+    }
+
+    void writeInts(int[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            ensure(Integer.BYTES);
+            int batch = Math.min(count - done, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, done, batch);
+            buffer.position(buffer.position() + batch * Integer.BYTES);
+            done += batch;
+        }
+    }
+
+    void writeLongs(long[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            ensure(Long.BYTES);
+            int batch = Math.min(count - done, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, done, batch);
+            buffer.position(buffer.position() + batch * Long.BYTES);
+            done += batch;
+        }
+    }
+
+    void writeBytes(byte[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            ensure(1);
+            int batch = Math.min(count - done, buffer.remaining());
+            buffer.put(values, done, batch);
+            done += batch;
+        }
+    }
+
+    /**
+     * Flushes, forces the file to disk and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
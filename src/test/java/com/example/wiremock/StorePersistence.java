@@ -0,0 +1,167 @@
+package com.example.wiremock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one {@link UserStore} durable in a directory: a binary snapshot of the whole store, and a
+ * {@link UserJournal} of the writes made since.
+ * <p>
+ * Opening the directory maps the snapshot back in and replays the journal on top, so a store of
+ * millions of rows comes back in a fraction of a second instead of being seeded again. A checkpoint
+ * writes a new snapshot next to the old one, renames it into place and starts an empty journal;
+ * checkpoints run on a daemon thread whenever the journal has records and the interval has passed,
+ * and once more on {@link #close()}. A checkpoint holds the store's read lock, so reads carry on
+ * while writers wait for it.
+ */
+final class StorePersistence implements Closeable {
+
+    static final String SNAPSHOT_FILE = "users.snapshot";
+    static final String JOURNAL_FILE = "users.journal";
+    private static final int MAGIC = 0x55534e50; // "USNP"
+
+    private static final Logger logger = LoggerFactory.getLogger(StorePersistence.class);
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final ScheduledExecutorService checkpoints;
+    private UserStore store;
+    private UserJournal journal;
+    // Written to both the snapshot and its journal, so a journal is never replayed onto another snapshot
+    private long checkpointId;
+
+    private StorePersistence(Path directory, UserStore store, long checkpointId, Duration snapshotInterval) {
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.store = store;
+        this.checkpointId = checkpointId;
+        this.checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-store-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = snapshotInterval.toMillis();
+        checkpoints.scheduleWithFixedDelay(this::scheduledCheckpoint, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Restores the store kept in {@code directory}, or starts an empty one there.
+     *
+     * @throws IllegalArgumentException when {@code snapshotInterval} is under a millisecond
+     */
+    static StorePersistence open(Path directory, Duration snapshotInterval) throws IOException {
+        if (snapshotInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be at least 1 ms: " + snapshotInterval);
+        }
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        if (!Files.exists(snapshotFile)) {
+            StorePersistence persistence = new StorePersistence(directory, new UserStore(), 0, snapshotInterval);
+            persistence.checkpoint();
+            return persistence;
+        }
+
+        UserStore store;
+        long checkpointId;
+        try (SnapshotReader in = new SnapshotReader(snapshotFile)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(snapshotFile + " is not a user store snapshot");
+            }
+            checkpointId = in.readLong();
+            store = UserStore.readSnapshot(in);
+        }
+        long replayed = Files.exists(journalFile) ? UserJournal.replay(journalFile, checkpointId, store) : 0;
+
+        StorePersistence persistence = new StorePersistence(directory, store, checkpointId, snapshotInterval);
+        if (replayed > 0) {
+            persistence.checkpoint();
+        } else {
+            persistence.startJournal();
+        }
+        return persistence;
+    }
+
+    synchronized UserStore store() {
+        return store;
+    }
+
+    /**
+     * Makes {@code replacement} the persisted store, e.g. after a reset, and checkpoints it.
+     */
+    synchronized void replace(UserStore replacement) {
+        store.attach(null);
+        store = replacement;
+        checkpoint();
+    }
+
+    /**
+     * Snapshots the store and starts an empty journal.
+     */
+    synchronized void checkpoint() {
+        store.read(() -> {
+            try {
+                long nextId = ThreadLocalRandom.current().nextLong();
+                Path written = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+                try (SnapshotWriter out = new SnapshotWriter(written)) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(nextId);
+                    store.writeSnapshot(out);
+                }
+                Files.move(written, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // Only now is the new snapshot the one a restart reads; until then the journal continues the old one
+                checkpointId = nextId;
+                startJournal();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        checkpoints.shutdownNow();
+        checkpointIfChanged();
+        store.attach(null);
+        journal.close();
+    }
+
+    /**
+     * Runs a periodic checkpoint. A failure is logged rather than thrown, since a task that throws is
+     * never run again; the journal keeps the writes until a later checkpoint succeeds.
+     */
+    private void scheduledCheckpoint() {
+        try {
+            checkpointIfChanged();
+        } catch (RuntimeException e) {
+            logger.warn("Checkpointing the user store to {} failed; retrying at the next interval.", snapshotFile, e);
+        }
+    }
+
+    private synchronized void checkpointIfChanged() {
+        if (journal.records() > 0) {
+            checkpoint();
+        }
+    }
+
+    private void startJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        journal = UserJournal.create(journalFile, checkpointId);
+        store.attach(journal);
+    }
+}
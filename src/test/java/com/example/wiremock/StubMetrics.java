@@ -0,0 +1,155 @@
+package com.example.wiremock;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the stub, served as JSON from {@code /__metrics}.
+ * <p>
+ * Recording is built to stay off the contended path under load: per-method slots are looked up in
+ * a {@link ConcurrentHashMap} without locking, each status code has its own lazily created
+ * histogram in an array slot, HdrHistogram's concurrent recording is wait-free for writers, and
+ * plain counters are {@link LongAdder}s. Nothing is allocated per request once a method/status pair
+ * has been seen. Latency is the time spent in the transformer, in microseconds.
+ */
+final class StubMetrics {
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final ConcurrentHashMap<String, AtomicReferenceArray<Histogram>> latencies = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder connectionResets = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    void recordRequest(String method, int status, long nanos) {
+        int slot = Math.max(MIN_STATUS, Math.min(MAX_STATUS, status)) - MIN_STATUS;
+        AtomicReferenceArray<Histogram> byStatus = latencies.get(method);
+        if (byStatus == null) {
+            byStatus = latencies.computeIfAbsent(method,
+                    key -> new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1));
+        }
+        Histogram histogram = byStatus.get(slot);
+        if (histogram == null) {
+            byStatus.compareAndSet(slot, null, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            histogram = byStatus.get(slot);
+        }
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_LATENCY_MICROS));
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    void notModified() {
+        notModified.increment();
+    }
+
+    void bytesOut(int bytes) {
+        bytesOut.add(bytes);
+    }
+
+    void connectionReset() {
+        connectionResets.increment();
+    }
+
+    void injectedError() {
+        injectedErrors.increment();
+    }
+
+    byte[] toJson(JsonFactory jsonFactory, Map<String, UserStore> stores, ResponseCache responseCache) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder();
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            writeRequests(generator);
+            writeCache(generator, responseCache);
+            generator.writeNumberField("bytes_out", bytesOut.sum());
+            generator.writeObjectFieldStart("injected_faults");
+            generator.writeNumberField("connection_resets", connectionResets.sum());
+            generator.writeNumberField("server_errors", injectedErrors.sum());
+            generator.writeEndObject();
+            writeStores(generator, stores);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeRequests(JsonGenerator generator) throws IOException {
+        generator.writeObjectFieldStart("requests");
+        for (Map.Entry<String, AtomicReferenceArray<Histogram>> method : new TreeMap<>(latencies).entrySet()) {
+            generator.writeObjectFieldStart(method.getKey());
+            AtomicReferenceArray<Histogram> byStatus = method.getValue();
+            for (int slot = 0; slot < byStatus.length(); slot++) {
+                Histogram histogram = byStatus.get(slot);
+                if (histogram == null) {
+                    continue;
+                }
+                Histogram copy = histogram.copy();
+                generator.writeObjectFieldStart(String.valueOf(slot + MIN_STATUS));
+                generator.writeNumberField("count", copy.getTotalCount());
+                generator.writeNumberField("mean_ms", copy.getMean() / 1000.0);
+                generator.writeNumberField("p50_ms", copy.getValueAtPercentile(50) / 1000.0);
+                generator.writeNumberField("p90_ms", copy.getValueAtPercentile(90) / 1000.0);
+                generator.writeNumberField("p99_ms", copy.getValueAtPercentile(99) / 1000.0);
+                generator.writeNumberField("max_ms", copy.getMaxValue() / 1000.0);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeCache(JsonGenerator generator, ResponseCache responseCache) throws IOException {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        long lookups = hits + misses;
+        generator.writeObjectFieldStart("response_cache");
+        generator.writeNumberField("hits", hits);
+        generator.writeNumberField("misses", misses);
+        generator.writeNumberField("hit_rate", lookups == 0 ? 0 : (double) hits / lookups);
+        generator.writeNumberField("not_modified", notModified.sum());
+        generator.writeNumberField("entries", responseCache.size());
+        generator.writeNumberField("bytes", responseCache.cachedBytes());
+        generator.writeEndObject();
+    }
+
+    private void writeStores(JsonGenerator generator, Map<String, UserStore> stores) throws IOException {
+        generator.writeObjectFieldStart("stores");
+        for (Map.Entry<String, UserStore> tenant : new TreeMap<>(stores).entrySet()) {
+            UserStore store = tenant.getValue();
+            generator.writeObjectFieldStart(tenant.getKey().isEmpty() ? "default" : tenant.getKey());
+            generator.writeNumberField("rows", store.size());
+            generator.writeNumberField("version", store.version());
+            generator.writeObjectFieldStart("indexes");
+            for (Map.Entry<String, Integer> index : store.indexSizes().entrySet()) {
+                generator.writeNumberField(index.getKey(), index.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.wiremock;
+
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the in-memory user stub as a long-lived local server, for load tools and services on the
+ * same machine to point at.
+ * <p>
+ * Start it with {@code mvn -Pstub-server verify}; settings are system properties:
+ * <ul>
+ *     <li>{@value #PORT_PROPERTY} (default {@value #DEFAULT_PORT}) and {@value #BIND_ADDRESS_PROPERTY}
+ *     (default {@code 127.0.0.1})</li>
+ *     <li>{@value #ACCEPTORS_PROPERTY}: Jetty acceptor threads (default 1; with keep-alive,
+ *     connections are accepted rarely)</li>
+ *     <li>{@value #WORKER_THREADS_PROPERTY}: Jetty worker threads (default four per core, at least
+ *     32)</li>
+ *     <li>{@value #VIRTUAL_THREADS_PROPERTY}: serve requests on virtual threads instead (Java 21 and
+ *     later; ignored with a warning before)</li>
+ *     <li>{@value #IDLE_TIMEOUT_PROPERTY}: how long an idle kept-alive connection stays open
+ *     (default 30000 ms) and {@value #ACCEPT_QUEUE_PROPERTY}: the listen backlog (default 1024)</li>
+ *     <li>{@value #REQUEST_JOURNAL_PROPERTY}: how many requests WireMock keeps for verification
+ *     (default 0, journal off)</li>
+ *     <li>{@value #GZIP_PROPERTY}: gzip responses for clients that accept it (default false)</li>
+ *     <li>{@value #SEED_USERS_PROPERTY}: top the store up to this many generated users on start</li>
+ *     <li>{@link UserStubServer#DATA_DIR_PROPERTY}: keep the store on disk across restarts</li>
+ * </ul>
+ * WireMock's per-request overhead is trimmed: no request journal, no per-request logging, one
+ * catch-all mapping, and responses sent with a {@code Content-Length} rather than chunked.
+ */
+public final class StubServerLauncher {
+
+    public static final String PORT_PROPERTY = "stub.port";
+    public static final String BIND_ADDRESS_PROPERTY = "stub.bindAddress";
+    public static final String ACCEPTORS_PROPERTY = "stub.acceptors";
+    public static final String WORKER_THREADS_PROPERTY = "stub.workerThreads";
+    public static final String VIRTUAL_THREADS_PROPERTY = "stub.virtualThreads";
+    public static final String IDLE_TIMEOUT_PROPERTY = "stub.idleTimeoutMillis";
+    public static final String ACCEPT_QUEUE_PROPERTY = "stub.acceptQueueSize";
+    public static final String REQUEST_JOURNAL_PROPERTY = "stub.requestJournalEntries";
+    public static final String GZIP_PROPERTY = "stub.gzip";
+    public static final String SEED_USERS_PROPERTY = "stub.seedUsers";
+    public static final int DEFAULT_PORT = 8089;
+    private static final long SEED = 42L;
+
+    private static final Logger logger = LoggerFactory.getLogger(StubServerLauncher.class);
+
+    private StubServerLauncher() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workerThreads = Integer.getInteger(WORKER_THREADS_PROPERTY, Math.max(32, 4 * cores));
+        WireMockConfiguration options = WireMockConfiguration.options()
+                .port(Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT))
+                .bindAddress(System.getProperty(BIND_ADDRESS_PROPERTY, "127.0.0.1"))
+                .jettyAcceptors(Integer.getInteger(ACCEPTORS_PROPERTY, 1))
+                .containerThreads(workerThreads)
+                .jettyIdleTimeout(Long.getLong(IDLE_TIMEOUT_PROPERTY, 30_000L))
+                .jettyAcceptQueueSize(Integer.getInteger(ACCEPT_QUEUE_PROPERTY, 1024))
+                .stubRequestLoggingDisabled(true)
+                .gzipDisabled(!Boolean.getBoolean(GZIP_PROPERTY))
+                .useChunkedTransferEncoding(Options.ChunkedEncodingPolicy.NEVER);
+
+        int journalEntries = Integer.getInteger(REQUEST_JOURNAL_PROPERTY, 0);
+        if (journalEntries > 0) {
+            options.maxRequestJournalEntries(journalEntries);
+        } else {
+            options.disableRequestJournal();
+        }
+
+        String threads = workerThreads + " worker threads";
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            VirtualThreadPool virtualThreads = VirtualThreadPool.createIfSupported();
+            if (virtualThreads != null) {
+                options.threadPoolFactory(ignored -> virtualThreads);
+                threads = "virtual threads";
+            } else {
+                logger.warn("Virtual threads need Java 21 or later, running on Java {}; using {}.",
+                        Runtime.version().feature(), threads);
+            }
+        }
+
+        UserStubServer server = UserStubServer.start(options);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            stopped.countDown();
+        }, "stub-server-shutdown"));
+
+        int seedUsers = Integer.getInteger(SEED_USERS_PROPERTY, 0);
+        int missing = seedUsers - server.rowCount(null);
+        if (missing > 0) {
+            long start = System.nanoTime();
+            server.seed(null, missing, SEED);
+            logger.info("Seeded {} users in {} ms.", missing, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        logger.info("User stub serving {} users at {} on {}; metrics at {}. Stop with Ctrl+C.",
+                server.rowCount(null), server.baseUrl(), threads, server.metricsUrl());
+        stopped.await();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Columns of the {@code users} table as exposed over PostgREST, with the {@link User} accessor that
+ * backs each of them.
+ */
+enum UserColumn {
+    ID("id", User::getId, false),
+    FIRST_NAME("first_name", User::getFirstName, false),
+    LAST_NAME("last_name", User::getLastName, false),
+    EMAIL("email", User::getEmail, false),
+    AGE("age", User::getAge, true);
+
+    static final List<UserColumn> ALL = List.of(values());
+
+    private final String columnName;
+    private final Function<User, String> accessor;
+    private final boolean numeric;
+
+    UserColumn(String columnName, Function<User, String> accessor, boolean numeric) {
+        this.columnName = columnName;
+        this.accessor = accessor;
+        this.numeric = numeric;
+    }
+
+    static UserColumn forName(String name) {
+        for (UserColumn column : values()) {
+            if (column.columnName.equals(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    String columnName() {
+        return columnName;
+    }
+
+    String valueOf(User user) {
+        return accessor.apply(user);
+    }
+
+    boolean isNumeric() {
+        return numeric;
+    }
+}
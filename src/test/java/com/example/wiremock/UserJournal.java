@@ -0,0 +1,178 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of the writes made to a {@link UserStore} since its last snapshot.
+ * <p>
+ * The header carries the id of the snapshot the journal continues, so a journal is only replayed
+ * onto that snapshot. Each record holds the full row after an insert or update, or the id
+ * of a removed row; strings are written as their UTF-8 length and bytes, so no value is too long. The store flushes the journal to the OS after every write; it is forced to disk
+ * on {@link #close()}. A record cut short by a crash ends the replay, and everything before it is
+ * kept.
+ */
+final class UserJournal implements Closeable {
+
+    private static final int MAGIC = 0x55534a32; // "USJ2"
+    private static final int NULL_LENGTH = -1;
+    private static final byte INSERT = 1;
+    private static final byte UPDATE = 2;
+    private static final byte REMOVE = 3;
+
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final AtomicLong records = new AtomicLong();
+
+    private UserJournal(Path path, long checkpointId) throws IOException {
+        file = new FileOutputStream(path.toFile());
+        out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeLong(checkpointId);
+        out.flush();
+    }
+
+    /**
+     * Starts an empty journal at {@code path}, replacing any file there, continuing the snapshot
+     * {@code checkpointId}.
+     */
+    static UserJournal create(Path path, long checkpointId) throws IOException {
+        return new UserJournal(path, checkpointId);
+    }
+
+    /**
+     * Applies the records of the journal at {@code path} to {@code store}, provided the journal
+     * continues snapshot {@code checkpointId}; a journal left over from another snapshot is ignored.
+     *
+     * @return the number of records applied
+     */
+    static long replay(Path path, long checkpointId, UserStore store) throws IOException {
+        long applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readLong() != checkpointId) {
+                return 0;
+            }
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    break;
+                }
+                if (op == REMOVE) {
+                    store.remove(readNullable(in));
+                } else if (op == INSERT || op == UPDATE) {
+                    User user = User.builder()
+                            .id(readNullable(in))
+                            .firstName(readNullable(in))
+                            .lastName(readNullable(in))
+                            .email(readNullable(in))
+                            .age(readNullable(in))
+                            .build();
+                    if (op == INSERT) {
+                        store.insert(user);
+                    } else {
+                        store.update(user.getId(), current -> user);
+                    }
+                } else {
+                    throw new IOException("Unknown journal record " + op + " after " + applied + " records");
+                }
+                applied++;
+            }
+        } catch (EOFException e) {
+            // A torn last record: keep what came before it
+        }
+        return applied;
+    }
+
+    void inserted(User user) {
+        writeRow(INSERT, user);
+    }
+
+    void updated(User user) {
+        writeRow(UPDATE, user);
+    }
+
+    void removed(String id) {
+        try {
+            out.writeByte(REMOVE);
+            writeNullable(id);
+            records.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hands buffered records to the OS, so they survive the JVM if not the machine.
+     */
+    void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long records() {
+        return records.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeRow(byte op, User user) {
+        try {
+            out.writeByte(op);
+            writeNullable(user.getId());
+            writeNullable(user.getFirstName());
+            writeNullable(user.getLastName());
+            writeNullable(user.getEmail());
+            writeNullable(user.getAge());
+            records.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeNullable(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length + " in journal");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes stub response bodies straight to UTF-8 bytes with a Jackson {@link JsonGenerator}.
+ * <p>
+ * Rows are streamed from the query's iterator into a per-thread reusable buffer, so serializing a
+ * page of users allocates neither an intermediate map per row nor a {@code String} for the whole
+ * body. Column names are pre-encoded once, and {@code age} is written as a primitive int.
+ */
+final class UserJsonWriter {
+
+    private static final SerializedString[] FIELD_NAMES = fieldNames();
+    private static final SerializedString CODE = new SerializedString("code");
+    private static final SerializedString DETAILS = new SerializedString("details");
+    private static final SerializedString HINT = new SerializedString("hint");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final ThreadLocal<ByteArrayBuilder> buffers =
+            ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_BUFFER_SIZE));
+
+    UserJsonWriter(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Serializes {@code users} as a JSON array containing only {@code columns}.
+     */
+    Written writeUsers(Iterator<User> users, List<UserColumn> columns) {
+        ByteArrayBuilder buffer = buffers.get();
+        buffer.reset();
+        int rows = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            generator.writeStartArray();
+            while (users.hasNext()) {
+                writeUser(generator, users.next(), columns);
+                rows++;
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Written(buffer.toByteArray(), rows);
+    }
+
+    /**
+     * Serializes a PostgREST error object; {@code details} may be {@code null}.
+     */
+    byte[] writeError(String message, String details) {
+        ByteArrayBuilder buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeFieldName(CODE);
+            generator.writeNull();
+            generator.writeFieldName(DETAILS);
+            generator.writeString(details);
+            generator.writeFieldName(HINT);
+            generator.writeNull();
+            generator.writeFieldName(MESSAGE);
+            generator.writeString(message);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeUser(JsonGenerator generator, User user, List<UserColumn> columns) throws IOException {
+        generator.writeStartObject();
+        for (UserColumn column : columns) {
+            generator.writeFieldName(FIELD_NAMES[column.ordinal()]);
+            if (column == UserColumn.AGE) {
+                generator.writeNumber(ageOf(user.getAge()));
+            } else {
+                generator.writeString(column.valueOf(user));
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Parses a stored age, falling back to 0 for anything that is not a plain int.
+     */
+    static int ageOf(String age) {
+        long value = Ints.parse(age);
+        return value == Ints.INVALID ? 0 : (int) value;
+    }
+
+    private static SerializedString[] fieldNames() {
+        UserColumn[] columns = UserColumn.values();
+        SerializedString[] names = new SerializedString[columns.length];
+        for (UserColumn column : columns) {
+            names[column.ordinal()] = new SerializedString(column.columnName());
+        }
+        return names;
+    }
+
+    /**
+     * A serialized body together with the number of rows written into it.
+     */
+    static final class Written {
+        private final byte[] bytes;
+        private final int rows;
+
+        private Written(byte[] bytes, int rows) {
+            this.bytes = bytes;
+            this.rows = rows;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int rows() {
+            return rows;
+        }
+    }
+}
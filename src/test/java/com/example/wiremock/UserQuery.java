@@ -0,0 +1,463 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Compiled PostgREST read query against the stub's {@code users} table.
+ * <p>
+ * Understands horizontal filters ({@code column=[not.]operator.value}) on every {@link UserColumn}
+ * with the {@code eq, neq, gt, gte, lt, lte, like, ilike, in, is} operators, plus the
+ * {@code select}, {@code order}, {@code limit} and {@code offset} parameters, or a {@code Range}
+ * header when the query string does not page itself. The query string is compiled once into a
+ * predicate, a comparator and a projection; equality on {@code id} or {@code email} and
+ * {@code id=in.(...)} sets are answered by direct key lookups, and keyset pages ({@code id=gt.x&order=id.asc&limit=n}) walk the id
+ * index from {@code x} instead of sorting the table.
+ */
+final class UserQuery {
+
+    private static final Set<String> RESERVED = Set.of("select", "order", "limit", "offset", "on_conflict", "columns");
+
+    private final Predicate<User> filter;
+    private final Comparator<User> order;
+    private final List<UserColumn> select;
+    private final Long limit;
+    private final long offset;
+    private final boolean filtered;
+    private final String idEquals;
+    private final Set<String> idIn;
+    private final String emailEquals;
+    private final boolean orderedById;
+    private final String idLowerBound;
+    private final boolean idLowerInclusive;
+
+    private UserQuery(Builder builder) {
+        this.filter = builder.filter;
+        this.order = builder.order;
+        this.select = builder.select;
+        this.limit = builder.limit;
+        this.offset = builder.offset;
+        this.filtered = builder.filtered;
+        this.idEquals = builder.idEquals;
+        this.idIn = builder.idIn;
+        this.emailEquals = builder.emailEquals;
+        this.orderedById = builder.orderedById;
+        this.idLowerBound = builder.idLowerBound;
+        this.idLowerInclusive = builder.idLowerInclusive;
+    }
+
+    static UserQuery parse(String url) {
+        return parse(url, null);
+    }
+
+    /**
+     * Compiles the query part of {@code url}. A {@code Range} header such as {@code 0-24} pages the
+     * result when the query string carries neither {@code limit} nor {@code offset}.
+     *
+     * @throws QueryException when a parameter names an unknown column or cannot be parsed
+     */
+    static UserQuery parse(String url, String rangeHeader) {
+        Builder query = new Builder();
+        boolean paged = false;
+
+        int queryStart = url.indexOf('?');
+        String queryString = queryStart < 0 ? "" : url.substring(queryStart + 1);
+        for (String pair : queryString.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = decode(eq < 0 ? pair : pair.substring(0, eq));
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+
+            switch (name) {
+                case "select":
+                    query.select = parseSelect(value);
+                    break;
+                case "order":
+                    query.order = parseOrder(value);
+                    query.orderedById = "id".equals(value) || "id.asc".equals(value);
+                    break;
+                case "limit":
+                    query.limit = parseCount(name, value);
+                    paged = true;
+                    break;
+                case "offset":
+                    query.offset = parseCount(name, value);
+                    paged = true;
+                    break;
+                default:
+                    if (RESERVED.contains(name)) {
+                        break;
+                    }
+                    UserColumn column = column(name);
+                    query.filter = query.filter.and(compileFilter(column, value));
+                    query.filtered = true;
+                    query.indexHint(column, value);
+            }
+        }
+        if (!paged && rangeHeader != null) {
+            query.applyRange(rangeHeader);
+        }
+        return new UserQuery(query);
+    }
+
+    Stream<User> execute(UserStore store) {
+        Stream<User> rows = candidates(store).filter(filter);
+        if (order != null && !streamsById()) {
+            rows = rows.sorted(order);
+        }
+        if (offset > 0) {
+            rows = rows.skip(offset);
+        }
+        if (limit != null) {
+            rows = rows.limit(limit);
+        }
+        return rows;
+    }
+
+    /**
+     * Number of rows matching the filters, ignoring paging. Unfiltered counts come straight from
+     * the store's size.
+     */
+    long count(UserStore store) {
+        return filtered ? candidates(store).filter(filter).count() : store.size();
+    }
+
+    boolean isFiltered() {
+        return filtered;
+    }
+
+    List<UserColumn> getSelect() {
+        return select;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    private Stream<User> candidates(UserStore store) {
+        if (idEquals != null) {
+            return Stream.ofNullable(store.get(idEquals));
+        }
+        if (idIn != null) {
+            return idIn.stream().map(store::get).filter(Objects::nonNull);
+        }
+        if (emailEquals != null) {
+            return Stream.ofNullable(store.getByEmail(emailEquals));
+        }
+        if (orderedById) {
+            return store.streamById(idLowerBound, idLowerInclusive);
+        }
+        return store.stream();
+    }
+
+    /**
+     * Whether {@link #candidates} comes from {@link UserStore#streamById}, already in the requested
+     * order; key lookups return rows in the order the keys were given.
+     */
+    private boolean streamsById() {
+        return orderedById && idEquals == null && idIn == null && emailEquals == null;
+    }
+
+    private static Predicate<User> compileFilter(UserColumn column, String expression) {
+        boolean negated = expression.startsWith("not.");
+        String operation = negated ? expression.substring(4) : expression;
+        int dot = operation.indexOf('.');
+        if (dot < 0) {
+            throw new QueryException("failed to parse filter (" + expression + ")");
+        }
+        String operator = operation.substring(0, dot);
+        String operand = operation.substring(dot + 1);
+
+        Predicate<User> predicate;
+        switch (operator) {
+            case "eq":
+                predicate = comparison(column, operand, c -> c == 0);
+                break;
+            case "neq":
+                predicate = comparison(column, operand, c -> c != 0);
+                break;
+            case "gt":
+                predicate = comparison(column, operand, c -> c > 0);
+                break;
+            case "gte":
+                predicate = comparison(column, operand, c -> c >= 0);
+                break;
+            case "lt":
+                predicate = comparison(column, operand, c -> c < 0);
+                break;
+            case "lte":
+                predicate = comparison(column, operand, c -> c <= 0);
+                break;
+            case "like":
+                predicate = pattern(column, operand, false);
+                break;
+            case "ilike":
+                predicate = pattern(column, operand, true);
+                break;
+            case "in":
+                predicate = membership(column, operand);
+                break;
+            case "is":
+                if (!"null".equals(operand)) {
+                    throw new QueryException("failed to parse filter (" + expression + ")");
+                }
+                predicate = user -> column.valueOf(user) == null;
+                break;
+            default:
+                throw new QueryException("failed to parse filter (" + expression + ")");
+        }
+        return negated ? predicate.negate() : predicate;
+    }
+
+    private static Predicate<User> comparison(UserColumn column, String operand, IntPredicate test) {
+        if (column.isNumeric()) {
+            int expected = parseInteger(operand);
+            return user -> {
+                Integer actual = integerValue(column.valueOf(user));
+                return actual != null && test.test(Integer.compare(actual, expected));
+            };
+        }
+        return user -> {
+            String actual = column.valueOf(user);
+            return actual != null && test.test(actual.compareTo(operand));
+        };
+    }
+
+    private static Predicate<User> pattern(UserColumn column, String operand, boolean ignoreCase) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < operand.length(); i++) {
+            char c = operand.charAt(i);
+            if (c == '*' || c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '_' ? "." : ".*");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        Pattern compiled = Pattern.compile(regex.toString(),
+                ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL : Pattern.DOTALL);
+        return user -> {
+            String actual = column.valueOf(user);
+            return actual != null && compiled.matcher(actual).matches();
+        };
+    }
+
+    private static Predicate<User> membership(UserColumn column, String operand) {
+        List<String> values = parseList(operand);
+        if (column.isNumeric()) {
+            Set<Integer> expected = new HashSet<>();
+            for (String value : values) {
+                expected.add(parseInteger(value));
+            }
+            return user -> expected.contains(integerValue(column.valueOf(user)));
+        }
+        Set<String> expected = new HashSet<>(values);
+        return user -> expected.contains(column.valueOf(user));
+    }
+
+    /**
+     * Parses a PostgREST list literal such as {@code (a,"b,c",d)}. Double quotes protect commas
+     * and parentheses inside a value.
+     */
+    static List<String> parseList(String operand) {
+        if (!operand.startsWith("(") || !operand.endsWith(")")) {
+            throw new QueryException("failed to parse filter (in." + operand + ")");
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 1; i < operand.length() - 1; i++) {
+            char c = operand.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0 || !values.isEmpty()) {
+            values.add(current.toString());
+        }
+        return values;
+    }
+
+    private static List<UserColumn> parseSelect(String value) {
+        if (value.isEmpty() || "*".equals(value)) {
+            return UserColumn.ALL;
+        }
+        List<UserColumn> columns = new ArrayList<>();
+        for (String name : value.split(",")) {
+            columns.add("*".equals(name) ? null : column(name.trim()));
+        }
+        return columns.contains(null) ? UserColumn.ALL : List.copyOf(columns);
+    }
+
+    private static Comparator<User> parseOrder(String value) {
+        Comparator<User> comparator = null;
+        for (String term : value.split(",")) {
+            String[] parts = term.trim().split("\\.");
+            UserColumn column = column(parts[0]);
+            boolean descending = false;
+            Boolean nullsFirst = null;
+            for (int i = 1; i < parts.length; i++) {
+                switch (parts[i]) {
+                    case "asc":
+                        descending = false;
+                        break;
+                    case "desc":
+                        descending = true;
+                        break;
+                    case "nullsfirst":
+                        nullsFirst = true;
+                        break;
+                    case "nullslast":
+                        nullsFirst = false;
+                        break;
+                    default:
+                        throw new QueryException("failed to parse order (" + value + ")");
+                }
+            }
+            Comparator<User> next = orderBy(column, descending,
+                    nullsFirst != null ? nullsFirst : descending);
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<User> orderBy(UserColumn column, boolean descending, boolean nullsFirst) {
+        Function<User, Comparable> key = column.isNumeric()
+                ? user -> integerValue(column.valueOf(user))
+                : column::valueOf;
+        Comparator<Comparable> values = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        values = nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+        return Comparator.comparing(key, values);
+    }
+
+    private static long parseCount(String name, String value) {
+        try {
+            long count = Long.parseLong(value);
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new QueryException("\"" + name + "\" must be a non-negative integer");
+    }
+
+    private static int parseInteger(String value) {
+        Integer parsed = integerValue(value);
+        if (parsed == null) {
+            throw new QueryException("invalid input syntax for type integer: \"" + value + "\"");
+        }
+        return parsed;
+    }
+
+    private static Integer integerValue(String value) {
+        long parsed = value == null ? Ints.INVALID : Ints.parse(value.trim());
+        return parsed == Ints.INVALID ? null : (int) parsed;
+    }
+
+    private static UserColumn column(String name) {
+        UserColumn column = UserColumn.forName(name);
+        if (column == null) {
+            throw new QueryException("column users." + name + " does not exist");
+        }
+        return column;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Builder {
+        private Predicate<User> filter = user -> true;
+        private Comparator<User> order;
+        private List<UserColumn> select = UserColumn.ALL;
+        private Long limit;
+        private long offset;
+        private boolean filtered;
+        private String idEquals;
+        private Set<String> idIn;
+        private String emailEquals;
+        private boolean orderedById;
+        private String idLowerBound;
+        private boolean idLowerInclusive;
+
+        private void indexHint(UserColumn column, String value) {
+            if (column == UserColumn.ID) {
+                if (value.startsWith("eq.")) {
+                    idEquals = value.substring(3);
+                } else if (value.startsWith("in.")) {
+                    idIn = new LinkedHashSet<>(parseList(value.substring(3)));
+                } else if (value.startsWith("gt.") || value.startsWith("gte.")) {
+                    String bound = value.substring(value.indexOf('.') + 1);
+                    if (idLowerBound == null || bound.compareTo(idLowerBound) > 0) {
+                        idLowerBound = bound;
+                        idLowerInclusive = value.startsWith("gte.");
+                    }
+                }
+            } else if (column == UserColumn.EMAIL && value.startsWith("eq.")) {
+                emailEquals = value.substring(3);
+            }
+        }
+
+        private void applyRange(String header) {
+            String range = header.trim();
+            if (range.startsWith("items=")) {
+                range = range.substring("items=".length());
+            }
+            int dash = range.indexOf('-');
+            if (dash <= 0) {
+                return;
+            }
+            try {
+                long start = Long.parseLong(range.substring(0, dash));
+                String endText = range.substring(dash + 1);
+                Long end = endText.isEmpty() ? null : Long.parseLong(endText);
+                if (start < 0 || (end != null && end < start)) {
+                    return;
+                }
+                offset = start;
+                limit = end == null ? null : end - start + 1;
+            } catch (NumberFormatException ignored) {
+                // an unparseable Range header is ignored, as HTTP requires
+            }
+        }
+    }
+
+    /**
+     * Raised for query strings PostgREST would reject with a 400.
+     */
+    static final class QueryException extends RuntimeException {
+        QueryException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
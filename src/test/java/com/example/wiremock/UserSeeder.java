@@ -0,0 +1,122 @@
+package com.example.wiremock;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Fills a {@link UserStore} with synthetic, schema-valid users without going through HTTP.
+ * <p>
+ * Rows are generated in chunks on the common fork-join pool and appended in chunk order, a bounded
+ * batch at a time, so a seeding of millions of rows never holds more than one batch of generated
+ * strings besides the store itself. Each chunk draws from its own generator derived from the seed
+ * and the chunk's first row, so the same seed yields the same users however the chunks were
+ * scheduled. Emails embed the row number and the seed, which makes them unique by construction;
+ * rows are numbered on from {@link UserStore#addedRows()}, which removals never take back, so
+ * seeding a store twice adds new users. Each chunk is appended all-or-nothing; when other writes
+ * add rows in between, the rest of the batch is generated again under the new numbers.
+ */
+final class UserSeeder {
+
+    private static final int CHUNK_SIZE = 16_384;
+    private static final int CHUNKS_PER_BATCH = 16;
+    private static final int MIN_AGE = 18;
+    private static final int MAX_AGE = 90;
+    private static final String EMAIL_DOMAIN = ".example.com";
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Anand", "Priya", "Meena", "Karthik", "Suresh", "Lakshmi", "Divya", "Arjun", "Kavya",
+            "Rahul", "Sneha", "Vikram", "Anjali", "Ravi", "Deepa", "Olivia", "Liam", "Emma", "Noah",
+            "Sofia", "Lucas", "Mia", "Ethan", "Hana", "Kenji", "Yuki", "Mateo", "Lucia", "Omar",
+            "Amara", "Tariq"};
+    private static final String[] LAST_NAMES = {
+            "Rajan", "Kumar", "Selvi", "Devi", "Pandian", "Manickam", "Iyer", "Nair", "Reddy", "Sharma",
+            "Patel", "Gupta", "Smith", "Johnson", "Brown", "Garcia", "Miller", "Davis", "Lopez", "Wilson",
+            "Tanaka", "Sato", "Silva", "Costa", "Haddad", "Okafor", "Mensah", "Novak", "Kowalski", "Jensen",
+            "Larsen", "Murphy"};
+    private static final String[] FIRST_NAME_KEYS = lowerCase(FIRST_NAMES);
+    private static final String[] LAST_NAME_KEYS = lowerCase(LAST_NAMES);
+
+    private UserSeeder() {
+    }
+
+    /**
+     * Appends {@code count} generated users to {@code store}.
+     *
+     * @return the number of rows in the store afterwards
+     */
+    static int seed(UserStore store, int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        String emailSuffix = "@s" + Long.toHexString(seed) + EMAIL_DOMAIN;
+        int seeded = 0;
+        while (seeded < count) {
+            long firstRow = store.addedRows();
+            int batchSize = Math.min(count - seeded, CHUNK_SIZE * CHUNKS_PER_BATCH);
+            int chunkCount = (batchSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Chunk[] chunks = new Chunk[chunkCount];
+            IntStream.range(0, chunkCount).parallel().forEach(i -> {
+                int chunkStart = i * CHUNK_SIZE;
+                chunks[i] = new Chunk(seed, firstRow + chunkStart, Math.min(CHUNK_SIZE, batchSize - chunkStart),
+                        emailSuffix);
+            });
+            for (Chunk chunk : chunks) {
+                if (!store.append(chunk.firstRow, chunk.idHigh, chunk.idLow, chunk.firstNames, chunk.lastNames,
+                        chunk.emails, chunk.ages, chunk.size)) {
+                    break;
+                }
+                seeded += chunk.size;
+            }
+        }
+        return store.size();
+    }
+
+    private static String[] lowerCase(String[] names) {
+        String[] lower = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            lower[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+        return lower;
+    }
+
+    /**
+     * One run of consecutive generated rows, column by column.
+     */
+    private static final class Chunk {
+        private final long firstRow;
+        private final int size;
+        private final long[] idHigh;
+        private final long[] idLow;
+        private final String[] firstNames;
+        private final String[] lastNames;
+        private final String[] emails;
+        private final int[] ages;
+
+        private Chunk(long seed, long firstRow, int size, String emailSuffix) {
+            this.firstRow = firstRow;
+            this.size = size;
+            idHigh = new long[size];
+            idLow = new long[size];
+            firstNames = new String[size];
+            lastNames = new String[size];
+            emails = new String[size];
+            ages = new int[size];
+
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + firstRow);
+            StringBuilder email = new StringBuilder(48);
+            for (int i = 0; i < size; i++) {
+                // Random (version 4) UUID
+                idHigh[i] = (random.nextLong() & ~0xF000L) | 0x4000L;
+                idLow[i] = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+                int first = random.nextInt(FIRST_NAMES.length);
+                int last = random.nextInt(LAST_NAMES.length);
+                firstNames[i] = FIRST_NAMES[first];
+                lastNames[i] = LAST_NAMES[last];
+                ages[i] = random.nextInt(MIN_AGE, MAX_AGE + 1);
+                email.setLength(0);
+                emails[i] = email.append(FIRST_NAME_KEYS[first]).append('.').append(LAST_NAME_KEYS[last])
+                        .append('.').append(firstRow + i).append(emailSuffix).toString();
+            }
+        }
+    }
+}
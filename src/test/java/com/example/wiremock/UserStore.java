@@ -0,0 +1,1006 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compact, column-oriented backing store for {@link InMemoryUserTransformer}.
+ * <p>
+ * Each row is a slot in a set of primitive columns: the UUID id as two longs, the age as an int,
+ * first and last names as codes into a per-store pool of distinct names, and the email as UTF-8
+ * bytes in a shared arena. Slots are handed out in insertion order, which is the order
+ * {@code GET /users} returns rows in. Ids and case-insensitive emails (the {@code users_pkey} and
+ * {@code users_email_key} constraints of the real table) are indexed by {@link SlotHashIndex}es, and
+ * an id-ordered slot array serves keyset pages ({@code id=gt.x&order=id.asc}). A row costs well
+ * under 100 bytes of heap this way, so stores of ten million users fit a test JVM. Rows are turned
+ * into {@link User}s only on the way out.
+ * <p>
+ * Writes take a write lock; reads share a read lock. Lookups lock by themselves, but the streams
+ * returned by {@link #stream()} and {@link #streamById} read the columns lazily and must be
+ * consumed inside {@link #read(Supplier)}. Deleted slots are skipped until enough of them pile up
+ * to be compacted away. An email is rewritten in place when the new one fits in the old one's bytes;
+ * otherwise it goes to the end of the arena, and the bytes left behind count towards compaction too.
+ * A name is kept only while some live row uses it.
+ * <p>
+ * Every successful write bumps {@link #version()}, so anything derived from the rows at version
+ * {@code v} is stale once the version moves past {@code v}. Each store also gets a JVM-unique
+ * {@link #generation()}, so a store swapped in on reset never shares a (generation, version) pair
+ * with the one it replaced.
+ */
+class UserStore {
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_VALUE = -1;
+    private static final int NO_AGE = Integer.MIN_VALUE;
+    private static final String[] AGE_TEXT = IntStream.range(0, 150).mapToObj(Integer::toString)
+            .toArray(String[]::new);
+    // Deleted slots are compacted away once there are at least this many and they outnumber live rows
+    private static final int MIN_COMPACTION = 1024;
+    // Likewise for email bytes no row points at any more
+    private static final int MIN_EMAIL_COMPACTION = 64 * 1024;
+    // New ids are merged into the sorted id order once they exceed this share of it
+    private static final int PENDING_MERGE_DIVISOR = 16;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int slots;
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private int[] firstNames = new int[INITIAL_CAPACITY];
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private int[] emailOffsets = new int[INITIAL_CAPACITY];
+    private int[] emailLengths = new int[INITIAL_CAPACITY];
+    private int[] emailHashes = new int[INITIAL_CAPACITY];
+    private byte[] emailBytes = new byte[INITIAL_CAPACITY * 32];
+    private int emailBytesUsed;
+    private int deadEmailBytes;
+    private final BitSet deleted = new BitSet();
+    private final NamePool names = new NamePool();
+    private final SlotHashIndex byId = new SlotHashIndex(slot -> idHash(idHigh[slot], idLow[slot]));
+    private final SlotHashIndex byEmail = new SlotHashIndex(slot -> emailHashes[slot]);
+
+    // Live slots in id order at the last merge, plus slots inserted since; deleted slots are skipped
+    private final Object idOrderLock = new Object();
+    private int[] sortedIds = new int[0];
+    private int[] pendingIds = new int[INITIAL_CAPACITY];
+    private int pendingCount;
+    private boolean pendingSorted = true;
+
+    private volatile int liveRows;
+    // Rows ever added; removals and compaction never take it back, so it can number rows uniquely
+    private volatile long addedRows;
+    private final AtomicLong version = new AtomicLong();
+    private final long generation = GENERATIONS.incrementAndGet();
+    private volatile UserJournal journal;
+
+    /**
+     * Runs {@code body} under the read lock, so it sees no write half-applied.
+     */
+    <T> T read(Supplier<T> body) {
+        lock.readLock().lock();
+        try {
+            return body.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> body) {
+        lock.writeLock().lock();
+        try {
+            return body.get();
+        } finally {
+            if (journal != null && lock.getWriteHoldCount() == 1) {
+                journal.flush();
+            }
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records every later write in {@code journal}, or stops journaling when {@code null}. Takes the
+     * read lock, so the switch never falls in the middle of a write.
+     */
+    void attach(UserJournal journal) {
+        read(() -> {
+            this.journal = journal;
+            return null;
+        });
+    }
+
+    User get(String id) {
+        return read(() -> {
+            int slot = slotOf(id);
+            return slot < 0 ? null : toUser(slot);
+        });
+    }
+
+    User getByEmail(String email) {
+        return read(() -> {
+            int slot = slotOfEmail(emailKey(email));
+            return slot < 0 ? null : toUser(slot);
+        });
+    }
+
+    /**
+     * Streams rows in insertion order; consume inside {@link #read(Supplier)}.
+     */
+    Stream<User> stream() {
+        requireLock();
+        return IntStream.range(0, slots).filter(slot -> !deleted.get(slot)).mapToObj(this::toUser);
+    }
+
+    /**
+     * Streams rows in id order, starting after (or at, when {@code inclusive}) {@code fromId}; a
+     * {@code null} or non-UUID bound starts at the lowest id. Consume inside {@link #read(Supplier)}.
+     */
+    Stream<User> streamById(String fromId, boolean inclusive) {
+        requireLock();
+        int[] sorted;
+        int[] pending;
+        int pendingEnd;
+        synchronized (idOrderLock) {
+            if (!pendingSorted) {
+                sortById(pendingIds, pendingCount);
+                pendingSorted = true;
+            }
+            sorted = sortedIds;
+            pending = pendingIds;
+            pendingEnd = pendingCount;
+        }
+        UUID bound = fromId == null ? null : parseId(fromId);
+        int sortedStart = 0;
+        int pendingStart = 0;
+        if (bound != null) {
+            long high = bound.getMostSignificantBits();
+            long low = bound.getLeastSignificantBits();
+            sortedStart = lowerBound(sorted, sorted.length, high, low, inclusive);
+            pendingStart = lowerBound(pending, pendingEnd, high, low, inclusive);
+        }
+        PrimitiveIterator.OfInt merged = new MergingIterator(sorted, sortedStart, sorted.length,
+                pending, pendingStart, pendingEnd);
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .filter(slot -> !deleted.get(slot))
+                .mapToObj(this::toUser);
+    }
+
+    int size() {
+        return liveRows;
+    }
+
+    /**
+     * How many rows have ever been added to the store. Unlike {@link #size()} it never goes down.
+     */
+    long addedRows() {
+        return addedRows;
+    }
+
+    long version() {
+        return version.get();
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Entry counts of each index, and the size of the email arena with how much of it no row uses,
+     * for introspection.
+     */
+    Map<String, Integer> indexSizes() {
+        return read(() -> {
+            Map<String, Integer> sizes = new LinkedHashMap<>();
+            sizes.put("slots", slots);
+            sizes.put("by_id", byId.size());
+            sizes.put("by_email", byEmail.size());
+            synchronized (idOrderLock) {
+                sizes.put("id_order", sortedIds.length + pendingCount);
+            }
+            sizes.put("distinct_names", names.size());
+            sizes.put("email_bytes", emailBytesUsed);
+            sizes.put("dead_email_bytes", deadEmailBytes);
+            return sizes;
+        });
+    }
+
+    /**
+     * Inserts the user under its id.
+     *
+     * @throws UniqueViolationException when the id or the email is already taken
+     * @throws IllegalArgumentException when the id is not a UUID or the age not an integer
+     */
+    void insert(User user) {
+        write(() -> {
+            insertRow(user);
+            version.incrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * Writes a batch of rows all-or-nothing. Rows are applied in order; if any of them breaks a
+     * unique constraint, the rows already applied are rolled back and the exception reports the
+     * failing row's index. With {@link Resolution#MERGE}, a row whose {@code conflictColumn} matches
+     * an existing row is merged into it through {@code merge}; with {@link Resolution#IGNORE} it is
+     * skipped. The batch holds the write lock throughout, so readers never see it half-applied.
+     *
+     * @return the rows as stored, in request order, excluding ignored duplicates
+     * @throws UniqueViolationException when a row conflicts and {@code resolution} is {@code ERROR}
+     */
+    List<User> insertAll(List<User> rows, UserColumn conflictColumn, Resolution resolution,
+            BinaryOperator<User> merge) {
+        return write(() -> {
+            Deque<Runnable> undo = new ArrayDeque<>();
+            List<User> written = new ArrayList<>(rows.size());
+            try {
+                for (int i = 0; i < rows.size(); i++) {
+                    User row = rows.get(i);
+                    String existingId = resolution == Resolution.ERROR ? null : conflictingId(row, conflictColumn);
+                    if (existingId != null && resolution == Resolution.IGNORE) {
+                        continue;
+                    }
+                    if (existingId != null) {
+                        User previous = get(existingId);
+                        User merged = applyBatchRow(i, () -> update(existingId, current -> merge.apply(current, row)));
+                        undo.push(() -> update(existingId, current -> previous));
+                        written.add(merged);
+                        continue;
+                    }
+                    User inserted = applyBatchRow(i, () -> toUser(insertRow(row)));
+                    version.incrementAndGet();
+                    undo.push(() -> remove(inserted.getId()));
+                    written.add(inserted);
+                }
+            } catch (UniqueViolationException | IllegalArgumentException e) {
+                while (!undo.isEmpty()) {
+                    undo.pop().run();
+                }
+                throw e;
+            }
+            return written;
+        });
+    }
+
+    private User applyBatchRow(int index, Supplier<User> write) {
+        try {
+            return write.get();
+        } catch (UniqueViolationException e) {
+            throw new UniqueViolationException(e.getMessage(), index);
+        }
+    }
+
+    private String conflictingId(User row, UserColumn conflictColumn) {
+        int slot = conflictColumn == UserColumn.EMAIL ? slotOfEmail(emailKey(row.getEmail())) : slotOf(row.getId());
+        return slot < 0 ? null : idText(slot);
+    }
+
+    /**
+     * Replaces the row with {@code change} applied to it; the id never changes. Returns the new
+     * value, or {@code null} when there is no row with that id.
+     *
+     * @throws UniqueViolationException when the change moves the row onto an email already in use
+     * @throws IllegalArgumentException when the new age is not an integer
+     */
+    User update(String id, UnaryOperator<User> change) {
+        return write(() -> {
+            int slot = slotOf(id);
+            if (slot < 0) {
+                return null;
+            }
+            User updated = change.apply(toUser(slot));
+            int age = parseAge(updated.getAge());
+            String oldEmailKey = emailKey(email(slot));
+            String newEmailKey = emailKey(updated.getEmail());
+            if (newEmailKey != null && !newEmailKey.equals(oldEmailKey)) {
+                int owner = slotOfEmail(newEmailKey);
+                if (owner >= 0 && owner != slot) {
+                    throw new UniqueViolationException("users_email_key");
+                }
+            }
+
+            if (oldEmailKey != null && !oldEmailKey.equals(newEmailKey)) {
+                byEmail.remove(slot);
+            }
+            if (!Objects.equals(email(slot), updated.getEmail())) {
+                replaceEmail(slot, updated.getEmail());
+                if (newEmailKey != null && !newEmailKey.equals(oldEmailKey)) {
+                    byEmail.add(slot);
+                }
+            }
+            int oldFirst = firstNames[slot];
+            int oldLast = lastNames[slot];
+            firstNames[slot] = names.acquire(updated.getFirstName());
+            lastNames[slot] = names.acquire(updated.getLastName());
+            names.release(oldFirst);
+            names.release(oldLast);
+            ages[slot] = age;
+            version.incrementAndGet();
+            User stored = toUser(slot);
+            if (journal != null) {
+                journal.updated(stored);
+            }
+            compactIfSparse();
+            return stored;
+        });
+    }
+
+    User remove(String id) {
+        return write(() -> {
+            int slot = slotOf(id);
+            if (slot < 0) {
+                return null;
+            }
+            User removed = toUser(slot);
+            byId.remove(slot);
+            if (emailLengths[slot] != NO_VALUE) {
+                byEmail.remove(slot);
+                deadEmailBytes += emailLengths[slot];
+            }
+            names.release(firstNames[slot]);
+            names.release(lastNames[slot]);
+            deleted.set(slot);
+            liveRows--;
+            compactIfSparse();
+            version.incrementAndGet();
+            if (journal != null) {
+                journal.removed(removed.getId());
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Appends {@code count} rows given column by column, all-or-nothing under one hold of the write
+     * lock; ages are already parsed, with {@code Integer.MIN_VALUE} for none. Meant for bulk seeding:
+     * the rows are numbered from {@code firstRow}, which must still be {@link #addedRows()}, so that
+     * numbers derived from it are never handed out twice.
+     *
+     * @return whether the rows were appended; {@code false} when rows were added since
+     *         {@code firstRow} was read, in which case nothing is appended
+     * @throws UniqueViolationException when an id or email is already taken
+     */
+    boolean append(long firstRow, long[] high, long[] low, String[] first, String[] last, String[] emails,
+            int[] rowAges, int count) {
+        return write(() -> {
+            if (addedRows != firstRow) {
+                return false;
+            }
+            ensureCapacity(slots + count);
+            byId.ensureCapacity(byId.size() + count);
+            byEmail.ensureCapacity(byEmail.size() + count);
+            for (int i = 0; i < count; i++) {
+                try {
+                    checkUnique(high[i], low[i], emailKey(emails[i]));
+                } catch (UniqueViolationException e) {
+                    for (int added = i - 1; added >= 0; added--) {
+                        remove(new UUID(high[added], low[added]).toString());
+                    }
+                    throw e;
+                }
+                addRow(high[i], low[i], first[i], last[i], emails[i], rowAges[i], false);
+            }
+            synchronized (idOrderLock) {
+                if (pendingCount > Math.max(MIN_COMPACTION, sortedIds.length / PENDING_MERGE_DIVISOR)) {
+                    mergePending();
+                }
+            }
+            version.incrementAndGet();
+            return true;
+        });
+    }
+
+    private int insertRow(User user) {
+        UUID id = parseId(user.getId());
+        if (id == null) {
+            throw new IllegalArgumentException("invalid input syntax for type uuid: \"" + user.getId() + "\"");
+        }
+        // Checked ahead of the age so a duplicate reports the constraint, as Postgres does
+        checkUnique(id.getMostSignificantBits(), id.getLeastSignificantBits(), emailKey(user.getEmail()));
+        return addRow(id.getMostSignificantBits(), id.getLeastSignificantBits(), user.getFirstName(),
+                user.getLastName(), user.getEmail(), parseAge(user.getAge()), true);
+    }
+
+    private int addRow(long high, long low, String first, String last, String email, int age,
+            boolean mergeIdOrder) {
+        ensureCapacity(slots + 1);
+        int slot = slots++;
+        idHigh[slot] = high;
+        idLow[slot] = low;
+        ages[slot] = age;
+        firstNames[slot] = names.acquire(first);
+        lastNames[slot] = names.acquire(last);
+        setEmail(slot, email);
+        byId.add(slot);
+        if (email != null) {
+            byEmail.add(slot);
+        }
+        addToIdOrder(slot, mergeIdOrder);
+        liveRows++;
+        addedRows++;
+        if (journal != null) {
+            journal.inserted(toUser(slot));
+        }
+        return slot;
+    }
+
+    private void checkUnique(long high, long low, String emailKey) {
+        if (emailKey != null && slotOfEmail(emailKey) >= 0) {
+            throw new UniqueViolationException("users_email_key");
+        }
+        if (slotOf(high, low) >= 0) {
+            throw new UniqueViolationException("users_pkey");
+        }
+    }
+
+    /**
+     * Writes the store's columns and indexes as they are, deleted slots included; the caller holds
+     * the read lock, so no write can interleave.
+     */
+    void writeSnapshot(SnapshotWriter out) throws IOException {
+        requireLock();
+        out.writeInt(SNAPSHOT_FORMAT);
+        out.writeLong(version.get());
+        out.writeInt(slots);
+        out.writeInt(liveRows);
+        out.writeLong(addedRows);
+        names.writeTo(out);
+        out.writeLongs(idHigh, slots);
+        out.writeLongs(idLow, slots);
+        out.writeInts(ages, slots);
+        out.writeInts(firstNames, slots);
+        out.writeInts(lastNames, slots);
+        out.writeInts(emailOffsets, slots);
+        out.writeInts(emailLengths, slots);
+        out.writeInts(emailHashes, slots);
+        out.writeInt(emailBytesUsed);
+        out.writeBytes(emailBytes, emailBytesUsed);
+        long[] deletedWords = deleted.toLongArray();
+        out.writeInt(deletedWords.length);
+        out.writeLongs(deletedWords, deletedWords.length);
+        byId.writeTo(out);
+        byEmail.writeTo(out);
+        synchronized (idOrderLock) {
+            out.writeInt(sortedIds.length);
+            out.writeInts(sortedIds, sortedIds.length);
+            out.writeInt(pendingSorted ? 1 : 0);
+            out.writeInt(pendingCount);
+            out.writeInts(pendingIds, pendingCount);
+        }
+    }
+
+    /**
+     * Rebuilds a store from {@link #writeSnapshot}'s output. Columns and index tables are copied back
+     * in bulk, nothing is rehashed or re-sorted.
+     */
+    static UserStore readSnapshot(SnapshotReader in) throws IOException {
+        int format = in.readInt();
+        if (format != SNAPSHOT_FORMAT) {
+            throw new IOException("Unsupported snapshot format " + format);
+        }
+        UserStore store = new UserStore();
+        store.version.set(in.readLong());
+        int slots = in.readInt();
+        store.liveRows = in.readInt();
+        store.addedRows = in.readLong();
+        store.names.readFrom(in);
+        store.ensureCapacity(slots);
+        store.slots = slots;
+        in.readLongs(store.idHigh, slots);
+        in.readLongs(store.idLow, slots);
+        in.readInts(store.ages, slots);
+        in.readInts(store.firstNames, slots);
+        in.readInts(store.lastNames, slots);
+        in.readInts(store.emailOffsets, slots);
+        in.readInts(store.emailLengths, slots);
+        in.readInts(store.emailHashes, slots);
+        store.emailBytesUsed = in.readInt();
+        store.emailBytes = new byte[Math.max(store.emailBytesUsed, INITIAL_CAPACITY)];
+        in.readBytes(store.emailBytes, store.emailBytesUsed);
+        long[] deletedWords = new long[in.readInt()];
+        in.readLongs(deletedWords, deletedWords.length);
+        store.deleted.or(BitSet.valueOf(deletedWords));
+        int liveEmailBytes = 0;
+        for (int slot = store.deleted.nextClearBit(0); slot < slots; slot = store.deleted.nextClearBit(slot + 1)) {
+            if (store.emailLengths[slot] != NO_VALUE) {
+                liveEmailBytes += store.emailLengths[slot];
+            }
+        }
+        store.deadEmailBytes = store.emailBytesUsed - liveEmailBytes;
+        store.names.countReferences(store.firstNames, store.lastNames, store.deleted, slots);
+        store.byId.readFrom(in);
+        store.byEmail.readFrom(in);
+        store.sortedIds = new int[in.readInt()];
+        in.readInts(store.sortedIds, store.sortedIds.length);
+        store.pendingSorted = in.readInt() == 1;
+        store.pendingCount = in.readInt();
+        store.pendingIds = new int[Math.max(store.pendingCount, INITIAL_CAPACITY)];
+        in.readInts(store.pendingIds, store.pendingCount);
+        return store;
+    }
+
+    private int slotOf(String id) {
+        UUID uuid = parseId(id);
+        return uuid == null ? -1 : slotOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    private int slotOf(long high, long low) {
+        return byId.find(idHash(high, low), slot -> idHigh[slot] == high && idLow[slot] == low);
+    }
+
+    private int slotOfEmail(String emailKey) {
+        if (emailKey == null) {
+            return -1;
+        }
+        int hash = emailKey.hashCode();
+        return byEmail.find(hash, slot -> emailHashes[slot] == hash && emailKey.equals(emailKey(email(slot))));
+    }
+
+    private User toUser(int slot) {
+        int age = ages[slot];
+        return User.builder()
+                .id(idText(slot))
+                .firstName(names.value(firstNames[slot]))
+                .lastName(names.value(lastNames[slot]))
+                .email(email(slot))
+                .age(age == NO_AGE ? null : age >= 0 && age < AGE_TEXT.length ? AGE_TEXT[age] : Integer.toString(age))
+                .build();
+    }
+
+    private String idText(int slot) {
+        return new UUID(idHigh[slot], idLow[slot]).toString();
+    }
+
+    private String email(int slot) {
+        int length = emailLengths[slot];
+        return length == NO_VALUE ? null : new String(emailBytes, emailOffsets[slot], length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Points the row at {@code email}, overwriting its old email in place when the new one fits and
+     * counting the bytes left unused as dead.
+     */
+    private void replaceEmail(int slot, String email) {
+        int oldLength = emailLengths[slot];
+        byte[] bytes = email == null ? null : email.getBytes(StandardCharsets.UTF_8);
+        if (oldLength == NO_VALUE) {
+            setEmail(slot, email, bytes);
+        } else if (bytes != null && bytes.length <= oldLength) {
+            System.arraycopy(bytes, 0, emailBytes, emailOffsets[slot], bytes.length);
+            emailLengths[slot] = bytes.length;
+            emailHashes[slot] = emailKey(email).hashCode();
+            deadEmailBytes += oldLength - bytes.length;
+        } else {
+            deadEmailBytes += oldLength;
+            setEmail(slot, email, bytes);
+        }
+    }
+
+    private void setEmail(int slot, String email) {
+        setEmail(slot, email, email == null ? null : email.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void setEmail(int slot, String email, byte[] bytes) {
+        if (email == null) {
+            emailLengths[slot] = NO_VALUE;
+            emailHashes[slot] = 0;
+            return;
+        }
+        if (emailBytesUsed + bytes.length > emailBytes.length) {
+            emailBytes = Arrays.copyOf(emailBytes, grow(emailBytes.length, emailBytesUsed + bytes.length));
+        }
+        System.arraycopy(bytes, 0, emailBytes, emailBytesUsed, bytes.length);
+        emailOffsets[slot] = emailBytesUsed;
+        emailLengths[slot] = bytes.length;
+        emailHashes[slot] = emailKey(email).hashCode();
+        emailBytesUsed += bytes.length;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= idHigh.length) {
+            return;
+        }
+        int capacity = grow(idHigh.length, required);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        emailOffsets = Arrays.copyOf(emailOffsets, capacity);
+        emailLengths = Arrays.copyOf(emailLengths, capacity);
+        emailHashes = Arrays.copyOf(emailHashes, capacity);
+    }
+
+    private static int grow(int current, int required) {
+        long grown = Math.max(required, current + (current >> 1));
+        if (grown > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("User store is full");
+        }
+        return (int) grown;
+    }
+
+    /**
+     * Moves live rows down over deleted slots, keeping their order, packs the email arena and
+     * rebuilds the indexes, once deleted slots or dead email bytes outweigh the live ones.
+     */
+    private void compactIfSparse() {
+        int deadRows = slots - liveRows;
+        int liveEmailBytes = emailBytesUsed - deadEmailBytes;
+        boolean sparseRows = deadRows >= MIN_COMPACTION && deadRows >= liveRows;
+        boolean sparseEmails = deadEmailBytes >= MIN_EMAIL_COMPACTION && deadEmailBytes >= liveEmailBytes;
+        if (!sparseRows && !sparseEmails) {
+            return;
+        }
+        byte[] compactedEmails = new byte[Math.max(INITIAL_CAPACITY, liveEmailBytes)];
+        int compactedEmailBytes = 0;
+        int target = 0;
+        for (int slot = deleted.nextClearBit(0); slot < slots; slot = deleted.nextClearBit(slot + 1)) {
+            idHigh[target] = idHigh[slot];
+            idLow[target] = idLow[slot];
+            ages[target] = ages[slot];
+            firstNames[target] = firstNames[slot];
+            lastNames[target] = lastNames[slot];
+            emailHashes[target] = emailHashes[slot];
+            int length = emailLengths[slot];
+            if (length != NO_VALUE) {
+                if (compactedEmailBytes + length > compactedEmails.length) {
+                    compactedEmails = Arrays.copyOf(compactedEmails,
+                            grow(compactedEmails.length, compactedEmailBytes + length));
+                }
+                System.arraycopy(emailBytes, emailOffsets[slot], compactedEmails, compactedEmailBytes, length);
+                emailOffsets[target] = compactedEmailBytes;
+                compactedEmailBytes += length;
+            }
+            emailLengths[target] = length;
+            target++;
+        }
+        slots = target;
+        emailBytes = compactedEmails;
+        emailBytesUsed = compactedEmailBytes;
+        deadEmailBytes = 0;
+        deleted.clear();
+
+        int[] all = new int[slots];
+        int[] withEmail = new int[slots];
+        int emails = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            all[slot] = slot;
+            if (emailLengths[slot] != NO_VALUE) {
+                withEmail[emails++] = slot;
+            }
+        }
+        byId.rebuild(all, slots);
+        byEmail.rebuild(withEmail, emails);
+        synchronized (idOrderLock) {
+            sortById(all, slots);
+            sortedIds = all;
+            pendingCount = 0;
+            pendingSorted = true;
+        }
+    }
+
+    private void addToIdOrder(int slot, boolean mergeIfLarge) {
+        synchronized (idOrderLock) {
+            if (pendingCount == pendingIds.length) {
+                pendingIds = Arrays.copyOf(pendingIds, grow(pendingIds.length, pendingCount + 1));
+            }
+            pendingIds[pendingCount++] = slot;
+            pendingSorted = false;
+            if (mergeIfLarge && pendingCount > Math.max(MIN_COMPACTION, sortedIds.length / PENDING_MERGE_DIVISOR)) {
+                mergePending();
+            }
+        }
+    }
+
+    /**
+     * Folds the pending ids into the sorted order, dropping deleted slots on the way.
+     */
+    private void mergePending() {
+        sortById(pendingIds, pendingCount);
+        int[] merged = new int[sortedIds.length + pendingCount];
+        int count = 0;
+        MergingIterator slotsInOrder = new MergingIterator(sortedIds, 0, sortedIds.length, pendingIds, 0, pendingCount);
+        while (slotsInOrder.hasNext()) {
+            int slot = slotsInOrder.nextInt();
+            if (!deleted.get(slot)) {
+                merged[count++] = slot;
+            }
+        }
+        sortedIds = count == merged.length ? merged : Arrays.copyOf(merged, count);
+        pendingCount = 0;
+        pendingSorted = true;
+    }
+
+    private int compareIds(int left, int right) {
+        int high = Long.compareUnsigned(idHigh[left], idHigh[right]);
+        return high != 0 ? high : Long.compareUnsigned(idLow[left], idLow[right]);
+    }
+
+    /**
+     * Index of the first of {@code slots[0, end)} whose id is above (or, when {@code inclusive}, at
+     * least) the bound. Unsigned order of the two longs is the lexicographic order of the UUID text.
+     */
+    private int lowerBound(int[] sorted, int end, long high, long low, boolean inclusive) {
+        int from = 0;
+        int to = end;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            int slot = sorted[mid];
+            int compared = Long.compareUnsigned(idHigh[slot], high);
+            if (compared == 0) {
+                compared = Long.compareUnsigned(idLow[slot], low);
+            }
+            if (compared < 0 || (compared == 0 && !inclusive)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private void sortById(int[] slotsToSort, int count) {
+        int[] buffer = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int from = 0; from < count - width; from += 2 * width) {
+                int middle = from + width;
+                int to = Math.min(from + 2 * width, count);
+                if (compareIds(slotsToSort[middle - 1], slotsToSort[middle]) <= 0) {
+                    continue;
+                }
+                int left = from;
+                int right = middle;
+                int out = from;
+                while (left < middle && right < to) {
+                    buffer[out++] = compareIds(slotsToSort[left], slotsToSort[right]) <= 0
+                            ? slotsToSort[left++] : slotsToSort[right++];
+                }
+                while (left < middle) {
+                    buffer[out++] = slotsToSort[left++];
+                }
+                while (right < to) {
+                    buffer[out++] = slotsToSort[right++];
+                }
+                System.arraycopy(buffer, from, slotsToSort, from, to - from);
+            }
+        }
+    }
+
+    private void requireLock() {
+        if (lock.getReadHoldCount() == 0 && !lock.isWriteLockedByCurrentThread()) {
+            throw new IllegalStateException("Store streams must be consumed inside UserStore.read");
+        }
+    }
+
+    private static int idHash(long high, long low) {
+        return Long.hashCode(high ^ low);
+    }
+
+    private static int parseAge(String age) {
+        if (age == null || age.isBlank()) {
+            return NO_AGE;
+        }
+        long value = Ints.parse(age);
+        if (value == Ints.INVALID) {
+            throw new IllegalArgumentException(UserValidator.INVALID_INTEGER);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a UUID in its canonical 8-4-4-4-12 hex form, in either case; anything else, including
+     * the shortened forms {@link UUID#fromString} tolerates, gives {@code null}.
+     */
+    static UUID parseId(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : Character.digit(c, 16) < 0) {
+                return null;
+            }
+        }
+        return UUID.fromString(id);
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Merges two id-sorted runs of slots into one ascending sequence.
+     */
+    private final class MergingIterator implements PrimitiveIterator.OfInt {
+        private final int[] first;
+        private final int firstEnd;
+        private final int[] second;
+        private final int secondEnd;
+        private int firstIndex;
+        private int secondIndex;
+
+        private MergingIterator(int[] first, int firstStart, int firstEnd, int[] second, int secondStart,
+                int secondEnd) {
+            this.first = first;
+            this.firstIndex = firstStart;
+            this.firstEnd = firstEnd;
+            this.second = second;
+            this.secondIndex = secondStart;
+            this.secondEnd = secondEnd;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return firstIndex < firstEnd || secondIndex < secondEnd;
+        }
+
+        @Override
+        public int nextInt() {
+            if (firstIndex < firstEnd && (secondIndex >= secondEnd
+                    || compareIds(first[firstIndex], second[secondIndex]) <= 0)) {
+                return first[firstIndex++];
+            }
+            if (secondIndex < secondEnd) {
+                return second[secondIndex++];
+            }
+            throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Distinct first and last names, each stored once and referred to by code. Every live row holds
+     * a reference to each of its names; a name whose last reference is released is dropped and its
+     * code handed out again, so updates and deletes do not leave names behind.
+     */
+    private static final class NamePool {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final Deque<Integer> freeCodes = new ArrayDeque<>();
+        private int[] references = new int[INITIAL_CAPACITY];
+
+        /**
+         * Returns the code for {@code name}, adding it if no live row uses it yet, and counts one
+         * more reference to it.
+         */
+        int acquire(String name) {
+            if (name == null) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(name);
+            if (code == null) {
+                code = freeCodes.isEmpty() ? values.size() : freeCodes.pop();
+                if (code == values.size()) {
+                    values.add(name);
+                } else {
+                    values.set(code, name);
+                }
+                codes.put(name, code);
+            }
+            if (code >= references.length) {
+                references = Arrays.copyOf(references, Math.max(code + 1, references.length * 2));
+            }
+            references[code]++;
+            return code;
+        }
+
+        void release(int code) {
+            if (code == NO_VALUE || --references[code] > 0) {
+                return;
+            }
+            codes.remove(values.get(code));
+            values.set(code, null);
+            freeCodes.push(code);
+        }
+
+        String value(int code) {
+            return code == NO_VALUE ? null : values.get(code);
+        }
+
+        /**
+         * Writes every code's name in code order, with dropped names as empty strings so that the
+         * codes stay valid.
+         */
+        void writeTo(SnapshotWriter out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeString(value == null ? "" : value);
+            }
+        }
+
+        /**
+         * Reads {@link #writeTo}'s output; the names only become usable once
+         * {@link #countReferences} has seen the rows.
+         */
+        void readFrom(SnapshotReader in) throws IOException {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                values.add(in.readString());
+            }
+        }
+
+        /**
+         * Counts the references the live rows hold and drops every name none of them uses.
+         */
+        void countReferences(int[] firstNames, int[] lastNames, BitSet deleted, int slots) {
+            references = new int[Math.max(INITIAL_CAPACITY, values.size())];
+            for (int slot = deleted.nextClearBit(0); slot < slots; slot = deleted.nextClearBit(slot + 1)) {
+                if (firstNames[slot] != NO_VALUE) {
+                    references[firstNames[slot]]++;
+                }
+                if (lastNames[slot] != NO_VALUE) {
+                    references[lastNames[slot]]++;
+                }
+            }
+            for (int code = values.size() - 1; code >= 0; code--) {
+                if (references[code] > 0) {
+                    codes.put(values.get(code), code);
+                } else {
+                    values.set(code, null);
+                    freeCodes.push(code);
+                }
+            }
+        }
+
+        int size() {
+            return codes.size();
+        }
+    }
+
+    /**
+     * How {@link #insertAll} treats rows that collide with an existing row, mirroring PostgREST's
+     * {@code Prefer: resolution=merge-duplicates|ignore-duplicates}.
+     */
+    enum Resolution {
+        ERROR, MERGE, IGNORE
+    }
+
+    /**
+     * Raised when a write would break a unique constraint; carries the Postgres constraint name the
+     * real API reports in its error message and, for batches, the index of the failing row.
+     */
+    static final class UniqueViolationException extends RuntimeException {
+        private final int rowIndex;
+
+        UniqueViolationException(String constraint) {
+            this(constraint, -1);
+        }
+
+        UniqueViolationException(String constraint, int rowIndex) {
+            super(constraint, null, false, false);
+            this.rowIndex = rowIndex;
+        }
+
+        int getRowIndex() {
+            return rowIndex;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import com.example.utils.UserJson;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+
+/**
+ * Suite-scoped WireMock server backed by an {@link InMemoryUserTransformer}.
+ * <p>
+ * Jetty is started once per JVM on first use and scenarios share it; {@link #reset(User)} swaps in
+ * an empty store so every scenario still starts from the same single seeded user. Scenarios running
+ * in parallel each reset and use their own tenant instead.
+ * <p>
+ * With the {@value #DATA_DIR_PROPERTY} system property set, the default store is kept on disk there
+ * (a snapshot plus a journal of later writes, snapshotted every
+ * {@value #SNAPSHOT_INTERVAL_PROPERTY} seconds, 60 by default) and restored when the server starts.
+ * <p>
+ * {@link StubServerLauncher} runs the same server standalone, with a tuned Jetty, via
+ * {@link #start(WireMockConfiguration)}.
+ */
+public final class UserStubServer {
+
+    public static final String DATA_DIR_PROPERTY = "stub.dataDir";
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "stub.snapshotIntervalSeconds";
+
+    // Delayed and throttled responses wait and dribble on these threads rather than on Jetty's
+    private static final int ASYNC_RESPONSE_THREADS = 64;
+
+    private static UserStubServer shared;
+
+    private final WireMockServer server;
+    private final InMemoryUserTransformer transformer;
+
+    private UserStubServer(WireMockConfiguration options) {
+        transformer = new InMemoryUserTransformer(UserJson.mapper());
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        if (dataDir != null && !dataDir.isBlank()) {
+            long snapshotSeconds = Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 60);
+            if (snapshotSeconds <= 0) {
+                throw new IllegalArgumentException(
+                        SNAPSHOT_INTERVAL_PROPERTY + " must be a positive number of seconds: " + snapshotSeconds);
+            }
+            Duration snapshotInterval = Duration.ofSeconds(snapshotSeconds);
+            try {
+                transformer.persistDefaultStore(Paths.get(dataDir), snapshotInterval);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not restore the user store from " + dataDir, e);
+            }
+        }
+        server = new WireMockServer(options
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(ASYNC_RESPONSE_THREADS)
+                .extensions(transformer));
+        server.start();
+
+        // One catch-all stub, so WireMock has a single mapping to match; the transformer routes
+        server.stubFor(any(anyUrl())
+                .willReturn(aResponse().withTransformers(InMemoryUserTransformer.NAME)));
+    }
+
+    /**
+     * Starts a server of its own with {@code options}, for use outside the test suite; the caller
+     * stops it.
+     */
+    public static UserStubServer start(WireMockConfiguration options) {
+        return new UserStubServer(options);
+    }
+
+    /**
+     * Returns the running server, starting it on first use.
+     */
+    public static synchronized UserStubServer shared() {
+        if (shared == null || !shared.server.isRunning()) {
+            shared = new UserStubServer(WireMockConfiguration.options().dynamicPort());
+        }
+        return shared;
+    }
+
+    public static synchronized void stopShared() {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.stop();
+        } finally {
+            shared = null;
+        }
+    }
+
+    /**
+     * Stops the server and writes a final snapshot of a persisted store.
+     */
+    public void stop() {
+        try {
+            if (server.isRunning()) {
+                server.stop();
+            }
+            transformer.closePersistence();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not snapshot the user store", e);
+        }
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    /**
+     * URL of the stub's JSON metrics: request counts and latencies per method and status, response
+     * cache hit rate, bytes served, and row and index counts per tenant store.
+     */
+    public String metricsUrl() {
+        return server.baseUrl() + InMemoryUserTransformer.METRICS_PATH;
+    }
+
+    /**
+     * Drops every row and seeds {@code existing}; returns the seeded user with its id.
+     */
+    public User reset(User existing) {
+        return transformer.resetWithExisting(existing);
+    }
+
+    /**
+     * Like {@link #reset(User)}, but only for requests sent with
+     * {@link InMemoryUserTransformer#TENANT_HEADER} set to {@code tenant}.
+     */
+    public User reset(String tenant, User existing) {
+        return transformer.resetWithExisting(tenant, existing);
+    }
+
+    /**
+     * Adds {@code count} synthetic, schema-valid users straight to the store of {@code tenant} (the
+     * default store when {@code null}), bypassing HTTP. The same {@code seed} gives the same users.
+     *
+     * @return the number of rows in that store afterwards
+     */
+    public int seed(String tenant, int count, long seed) {
+        return transformer.seed(tenant, count, seed);
+    }
+
+    /**
+     * Number of rows in the store of {@code tenant}, or of the default store when {@code null}.
+     */
+    public int rowCount(String tenant) {
+        return transformer.rowCount(tenant);
+    }
+
+    public void dropTenant(String tenant) {
+        transformer.dropTenant(tenant);
+    }
+
+    /**
+     * Changes the {@link FaultProfile} of {@code endpoint} ({@code "GET /users"}, or {@code "/users"}
+     * for every method) for requests of {@code tenant}, the default store's when {@code null}. The
+     * profiles last until the tenant is reset or dropped.
+     */
+    public void updateFaults(String tenant, String endpoint, UnaryOperator<FaultProfile> change) {
+        transformer.updateFaults(tenant, endpoint, change);
+    }
+
+    public void clearFaults(String tenant) {
+        transformer.clearFaults(tenant);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.wiremock;
+
+import com.example.models.User;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+
+/**
+ * Insert-time checks that mirror the constraints on the Supabase {@code users} table, in the order
+ * Postgres reports them.
+ * <p>
+ * The rules are built once and shared by single and bulk inserts. None of them allocates or
+ * throws on the failure path: the email check is a hand-rolled scan equivalent to
+ * {@code ^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,}$}, and age is parsed with {@link Ints}.
+ */
+final class UserValidator {
+
+    static final String EMAIL_NOT_NULL = "\"email\" of relation \"users\" violates not-null constraint";
+    static final String FIRST_NAME_NOT_NULL = "\"first_name\" of relation \"users\" violates not-null constraint";
+    static final String EMAIL_FORMAT = "check_email_format";
+    static final String AGE_POSITIVE = "check_age_positive";
+    static final String INVALID_INTEGER = "invalid input syntax for type integer";
+
+    /**
+     * A single constraint; returns the violation message, or {@code null} when the row passes.
+     */
+    interface Rule {
+        String check(User user);
+    }
+
+    private static final UserValidator SUPABASE_USERS = new UserValidator(List.of(
+            user -> StringUtils.isBlank(user.getEmail()) ? EMAIL_NOT_NULL : null,
+            user -> StringUtils.isBlank(user.getFirstName()) ? FIRST_NAME_NOT_NULL : null,
+            user -> isValidEmail(user.getEmail()) ? null : EMAIL_FORMAT,
+            UserValidator::checkAge));
+
+    private final Rule[] rules;
+
+    UserValidator(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    static UserValidator supabaseUsers() {
+        return SUPABASE_USERS;
+    }
+
+    /**
+     * Returns the message of the first rule {@code user} breaks, or {@code null} when it is valid.
+     */
+    String validate(User user) {
+        for (Rule rule : rules) {
+            String message = rule.check(user);
+            if (message != null) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private static String checkAge(User user) {
+        if (StringUtils.isBlank(user.getAge())) {
+            return AGE_POSITIVE;
+        }
+        long age = Ints.parse(user.getAge());
+        if (age == Ints.INVALID) {
+            return INVALID_INTEGER;
+        }
+        return age <= 0 || age >= 150 ? AGE_POSITIVE : null;
+    }
+
+    static boolean isValidEmail(String email) {
+        int at = email.indexOf('@');
+        if (at <= 0) {
+            return false;
+        }
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '.' && c != '_' && c != '%' && c != '+' && c != '-') {
+                return false;
+            }
+        }
+        int lastDot = -1;
+        for (int i = at + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isAsciiLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        // The domain needs at least one character before its last dot and two letters after it
+        if (lastDot < at + 2 || email.length() - lastDot - 1 < 2) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+}
@@ -25,4 +25,29 @@ Feature: Create Users
       | Priya      | Selvi     | priyas@example.com   | 28  |
       | Anand      | Kumar     | anandk@example.com   | 42  |
       | Meena      | Devi      | meenad@example.com   | 23  |
-      | Suresh     | Pandian   | sureshp@example.com  | 50  |
\ No newline at end of file
+      | Suresh     | Pandian   | sureshp@example.com  | 50  |
+
+  Scenario: Create several users in one request
+    When I create the following users:
+      | first_name | last_name | email                | age |
+      | Karthik    | Rajan     | karthikr@example.com | 35  |
+      | Priya      | Selvi     | priyas@example.com   | 28  |
+      | Anand      | Kumar     | anandk@example.com   | 42  |
+    Then the response status should be 201
+    And the response should contain 3 users
+    And the response should match the "schemas/user-list-schema.json" schema
+    When I request users matching "email=in.(karthikr@example.com,priyas@example.com,anandk@example.com)"
+    Then the response should contain 3 users
+
+  Scenario: Create several users with concurrent requests
+    When I create the following users concurrently:
+      | first_name | last_name | email                | age |
+      | Karthik    | Rajan     | karthikr@example.com | 35  |
+      | Priya      | Selvi     | priyas@example.com   | 28  |
+      | Anand      | Kumar     | anandk@example.com   | 42  |
+      | Meena      | Devi      | meenad@example.com   | 23  |
+    Then the response status should be 201
+    And the response should contain 4 users
+    And the response should match the "schemas/user-list-schema.json" schema
+    When I request users matching "email=in.(karthikr@example.com,priyas@example.com,anandk@example.com,meenad@example.com)"
+    Then the response should contain 4 users
\ No newline at end of file
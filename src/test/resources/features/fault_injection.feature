@@ -0,0 +1,44 @@
+@FaultInjection
+Feature: Slow and Flaky Backend
+  As a system user
+  I want the stub to answer slowly or fail on demand
+  So that I can see how the client copes with a struggling backend
+
+  Background:
+    Given the user service is running
+
+  Scenario: Reads wait for a fixed delay
+    Given the stub delays "GET /users" by 300 ms
+    When I request all users
+    Then the response status should be 200
+    And the response should take at least 300 ms
+    And the response should contain 1 user
+
+  Scenario: Reads replay a measured latency distribution
+    Given the stub delays "GET /users" by the latency percentiles:
+      | 50  | 200 |
+      | 99  | 400 |
+      | 100 | 500 |
+    When I request all users
+    Then the response status should be 200
+    And the response should take at least 200 ms
+
+  Scenario: Large responses are throttled to the configured bandwidth
+    Given the store contains 200 users
+    And the stub throttles "GET /users" to 40 KB/s
+    When I request all users
+    Then the response status should be 200
+    And the response should contain 200 users
+    And the response should take at least 400 ms
+
+  Scenario: A failed write leaves the store unchanged
+    Given the stub fails 100% of "POST /users" with status 503
+    When I create a user with the following details:
+      | first_name | Karthik              |
+      | last_name  | Rajan                |
+      | email      | karthikr@example.com |
+      | age        | 35                   |
+    Then the response status should be 503
+    When I request users matching "email=eq.karthikr@example.com"
+    Then the response status should be 200
+    And the response should be empty
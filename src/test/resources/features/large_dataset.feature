@@ -0,0 +1,29 @@
+@LargeDataset
+Feature: Large user datasets
+  As a system user
+  I want queries to stay correct when the table holds many rows
+  So that I can test filtering and paging at realistic data sizes
+
+  Background:
+    Given the user service is running
+    And the store contains 200000 users generated from seed 7
+
+  Scenario: Filter a large table
+    When I request users matching "age=eq.30&limit=25"
+    Then the response status should be 200
+    And the response should contain 25 users
+    And the response should match the "schemas/user-list-schema.json" schema
+
+  Scenario: Page through a large table by id
+    When I request users matching "id=gt.80000000-0000-0000-0000-000000000000&order=id.asc&limit=50"
+    Then the response status should be 200
+    And the response should contain 50 users
+
+  Scenario: Find a seeded user by email
+    Given I create a user with the following details:
+      | first_name | Sid            |
+      | last_name  | Selvan         |
+      | email      | sid@selvan.com |
+      | age        | 27             |
+    When I request users matching "email=eq.sid@selvan.com"
+    Then the response should contain 1 user
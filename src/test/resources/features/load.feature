@@ -0,0 +1,38 @@
+@Load
+Feature: User Service Load
+  As a system user
+  I want to put the user service under concurrent load
+  So that I can catch latency and throughput regressions
+
+  Background:
+    Given the user service is running
+
+  Scenario: Mixed CRUD load for a fixed duration
+    Given the load mix is:
+      | create | 40 |
+      | read   | 40 |
+      | update | 10 |
+      | delete | 10 |
+    When 32 concurrent clients send requests for 10 seconds
+    Then no load request should have failed
+    And p99 latency of create should be below 50 ms
+    And p99 latency of read should be below 50 ms
+    And throughput should be at least 2000 req/s
+
+  Scenario: Read-heavy load for a fixed number of requests
+    Given the load mix is:
+      | create | 5  |
+      | read   | 95 |
+    When 16 concurrent clients send 20000 requests
+    Then no load request should have failed
+    And p99 latency of read should be below 50 ms
+
+  Scenario: Tail latency of reads against a slow and flaky backend
+    Given the stub delays "GET /users" log-normally with a median of 20 ms and sigma 0.6
+    And the stub resets 1% of "GET /users" connections
+    And the stub fails 1% of "GET /users" with status 503
+    And the load mix is:
+      | read | 100 |
+    When 32 concurrent clients send 4000 requests
+    Then at most 5% of load requests should have failed
+    And p99 latency of read should be below 500 ms
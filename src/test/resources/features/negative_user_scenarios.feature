@@ -42,6 +42,44 @@ Feature: User Management
       And the response should contain "users_email_key"
       And the response should match the "schemas/error-response-schema.json" schema
 
+  Scenario: Attempt to update user to an email that exists already in the system
+    Given I create a user with the following details:
+      | first_name | Sid              |
+      | last_name  | Selvan           |
+      | email      | sid.ss@gmail.com |
+      | age        | 28               |
+    When I update the user with the following details:
+      | email | kamu@belyf.com |
+    Then the response status should be 409
+    And the response should contain "users_email_key"
+    And the response should match the "schemas/error-response-schema.json" schema
+
+  Scenario: Attempt to create several users where one email exists already in the system
+    When I create the following users:
+      | first_name | last_name | email              | age |
+      | Priya      | Selvi     | priyas@example.com | 28  |
+      | Kamatchi   | Manickam  | kamu@belyf.com     | 29  |
+    Then the response status should be 409
+    And the response should contain "users_email_key"
+    And the response should match the "schemas/error-response-schema.json" schema
+    When I request users matching "email=eq.priyas@example.com"
+    Then the response should contain 0 users
+
+  Scenario Outline: Attempt to create users from a malformed JSON body
+    When I create users from the raw body '<body>'
+    Then the response status should be 400
+    And the response should contain "<error>"
+    And the response should match the "schemas/error-response-schema.json" schema
+    When I request users matching "email=eq.ravi@example.com"
+    Then the response should contain 0 users
+    Examples:
+      | body                                                                               | error                                                           |
+      | [{"first_name":"Ravi","last_name":"Kumar","email":"ravi@example.com","age":30},5]  | argument of json_populate_recordset must be an array of objects |
+      | [1,{"first_name":"Ravi","last_name":"Kumar","email":"ravi@example.com","age":30}]  | argument of json_populate_recordset must be an array of objects |
+      | [{"first_name":"Ravi","last_name":"Kumar","email":"ravi@example.com","age":30}] {} | Empty or invalid json                                           |
+      | [{"first_name":"Ravi","last_name":"Kumar","email":"ravi@example.com","age":30}     | Empty or invalid json                                           |
+      | {"first_name":"Ravi","last_name":"Kumar","email":"ravi@example.com","age":[30]}    | invalid input syntax for type integer                           |
+
   Scenario: Attempt to create user with wrong endpoint
     When I create a user with the following details with an invalid endpoint:
       | first_name | Sid              |
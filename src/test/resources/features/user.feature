@@ -13,6 +13,39 @@ Feature: User Management
     And the response should not be empty
     And the response should match the "schemas/user-list-schema.json" schema
 
+  Scenario: Get users matching a filter
+    Given I create a user with the following details:
+      | first_name | Sid                  |
+      | last_name  | Selvan               |
+      | email      | sid@selvan.com       |
+      | age        | 27                   |
+    When I request users matching "email=ilike.*@SELVAN.com&age=gte.27&order=age.desc"
+    Then the response status should be 200
+    And the response should contain 1 user
+    And the response should match the "schemas/user-list-schema.json" schema
+
+  Scenario: Get users one page at a time
+    Given I create a user with the following details:
+      | first_name | Sid                  |
+      | last_name  | Selvan               |
+      | email      | sid@selvan.com       |
+      | age        | 27                   |
+    When I request users matching "order=id.asc&limit=1"
+    Then the response status should be 200
+    And the response should contain 1 user
+    And the response should match the "schemas/user-list-schema.json" schema
+
+  Scenario: Get users by a list of ids in id order
+    Given I create the following users:
+      | first_name | last_name | email                | age |
+      | Karthik    | Rajan     | karthikr@example.com | 35  |
+      | Priya      | Selvi     | priyas@example.com   | 28  |
+      | Anand      | Kumar     | anandk@example.com   | 42  |
+    When I request the created users by id, highest first, matching "order=id.asc&limit=2"
+    Then the response status should be 200
+    And the response should contain 2 users
+    And the response should list user ids in ascending order
+
   Scenario: Create a new user successfully
     When I create a user with the following details:
       | first_name | Sid                  |